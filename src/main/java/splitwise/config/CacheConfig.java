@@ -22,7 +22,7 @@ public class CacheConfig {
     @Bean
     public CacheManager cacheManager() {
         // Simple in-memory cache (TEMP CHANGES)
-        return new ConcurrentMapCacheManager("balances", "users", "groups", "expenses");
+        return new ConcurrentMapCacheManager("balances", "users", "groups", "expenses", "groupMembers");
     }
     
     /* Redis-based caching
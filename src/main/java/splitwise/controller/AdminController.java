@@ -7,6 +7,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import splitwise.service.AdminService;
+import splitwise.service.ExpenseArchiveService;
+import splitwise.service.SingleFlightRegistry;
+import splitwise.service.SpendRollupService;
 
 import java.util.Base64;
 import java.util.Map;
@@ -17,6 +20,9 @@ import java.util.Map;
  * This controller handles sensitive administrative operations that require authentication.
  * Currently supports:
  * - Database cleanup (delete all data)
+ * - Request coalescing statistics
+ * - Manual run of the expense archival job
+ * - Rebuild of the spend rollups
  * 
  * Security: Uses Basic Authentication with fixed credentials (admin/admin)
  */
@@ -33,6 +39,15 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private SingleFlightRegistry singleFlightRegistry;
+
+    @Autowired
+    private ExpenseArchiveService expenseArchiveService;
+
+    @Autowired
+    private SpendRollupService spendRollupService;
+
     /**
      * Deletes all data from the database.
      * 
@@ -87,6 +102,66 @@ public class AdminController {
         }
     }
 
+    /**
+     * Runs the expense archival job now instead of waiting for its schedule.
+     * Moves settled expenses older than the configured horizon to the archive tier.
+     * 
+     * Requires Basic Authentication with username: admin, password: admin
+     * 
+     * @param authHeader Authorization header with Basic authentication
+     * @return Number of expenses scanned and archived
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Object>> runArchive(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        if (!isValidAuth(authHeader)) {
+            logger.warn("Unauthorized archive run attempt");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of(
+                            "error", "Unauthorized",
+                            "message", "Valid admin credentials required",
+                            "hint", "Use Basic Auth with username: admin, password: admin"
+                    ));
+        }
+        
+        try {
+            Map<String, Object> result = expenseArchiveService.archiveSettledExpenses();
+            logger.info("Expense archival run completed: {}", result);
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Archive run in progress", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Recomputes the spend rollups behind /api/analytics from all expenses.
+     * 
+     * Requires Basic Authentication with username: admin, password: admin
+     * 
+     * @param authHeader Authorization header with Basic authentication
+     * @return Number of expenses read and rollup rows written
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        if (!isValidAuth(authHeader)) {
+            logger.warn("Unauthorized rollup rebuild attempt");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of(
+                            "error", "Unauthorized",
+                            "message", "Valid admin credentials required",
+                            "hint", "Use Basic Auth with username: admin, password: admin"
+                    ));
+        }
+        
+        Map<String, Object> result = spendRollupService.rebuild();
+        logger.info("Spend rollups rebuilt: {}", result);
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Validates the Basic Authentication header
      */
@@ -116,6 +191,15 @@ public class AdminController {
         }
     }
 
+    /**
+     * Request coalescing statistics: per single-flight layer, how many computations
+     * were run and how many were saved by sharing an in-flight computation.
+     */
+    @GetMapping("/coalescing/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> coalescingStats() {
+        return ResponseEntity.ok(singleFlightRegistry.getStats());
+    }
+
     /**
      * Health check endpoint for admin operations
      */
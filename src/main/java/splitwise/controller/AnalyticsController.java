@@ -0,0 +1,52 @@
+package splitwise.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import splitwise.dto.GroupSpend;
+import splitwise.dto.MonthlySpend;
+import splitwise.service.SpendRollupService;
+
+import java.util.List;
+
+/**
+ * AnalyticsController - Spend trends of a user, answered from the monthly spend rollups
+ *
+ * Months are given as yyyy-MM; the range defaults to the last 12 months and is capped at 120.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+
+    @Autowired
+    private SpendRollupService spendRollupService;
+
+    /**
+     * Paid, owed and expense count per month, optionally within one group.
+     */
+    @GetMapping("/users/{userId}/monthly")
+    public ResponseEntity<List<MonthlySpend>> getMonthlySpend(
+            @PathVariable String userId,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            @RequestParam(value = "groupId", required = false) String groupId) {
+        logger.info("Fetching monthly spend for user: {} (from: {}, to: {}, group: {})", userId, from, to, groupId);
+        return ResponseEntity.ok(spendRollupService.getMonthlySpend(userId, groupId, from, to));
+    }
+
+    /**
+     * Paid, owed and expense count per group over the range.
+     */
+    @GetMapping("/users/{userId}/groups")
+    public ResponseEntity<List<GroupSpend>> getGroupSpend(
+            @PathVariable String userId,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to) {
+        logger.info("Fetching spend per group for user: {} (from: {}, to: {})", userId, from, to);
+        return ResponseEntity.ok(spendRollupService.getGroupSpend(userId, from, to));
+    }
+}
@@ -3,11 +3,15 @@ package splitwise.controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import splitwise.model.Transaction;
 import splitwise.model.User;
 import splitwise.service.BalanceSheet;
+import splitwise.service.LedgerVersionService;
 import splitwise.service.UserService;
 
 import java.util.HashMap;
@@ -26,6 +30,9 @@ public class BalanceController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
     /**
      * Get balance between two users
      */
@@ -61,16 +68,26 @@ public class BalanceController {
     }
 
     /**
-     * Get total balance for a user
+     * Get total balance for a user.
+     * Supports conditional GET: If-None-Match with the current ETag returns 304 without recomputing.
      */
     @GetMapping("/users/{userId}/total")
-    public ResponseEntity<Map<String, Object>> getTotalBalance(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getTotalBalance(@PathVariable String userId, WebRequest webRequest) {
         logger.info("Fetching total balance for user: {}", userId);
         
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID is required and cannot be empty");
         }
         
+        String eTag = ledgerVersionService.getETag(userId);
+        if (webRequest.checkNotModified(eTag)) {
+            logger.info("Total balance not modified for user: {}", userId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+        
         User user = userService.getUser(userId);
         double totalBalance = balanceSheet.getTotalBalance(user);
         
@@ -79,7 +96,10 @@ public class BalanceController {
         response.put("totalBalance", totalBalance);
         
         logger.info("Successfully retrieved total balance for user {}: {}", userId, totalBalance);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(response);
     }
 
     /**
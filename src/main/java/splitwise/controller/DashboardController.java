@@ -3,9 +3,16 @@ package splitwise.controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import splitwise.service.BalanceStreamService;
 import splitwise.service.DashboardService;
+import splitwise.service.LedgerVersionService;
 
 import java.util.Map;
 
@@ -18,51 +25,110 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
+    @Autowired
+    private BalanceStreamService balanceStreamService;
+
     /**
-     * Get complete dashboard data for a user
+     * Get complete dashboard data for a user.
+     * Supports conditional GET: If-None-Match with the current ETag returns 304 without recomputing.
      */
     @GetMapping("/users/{userId}")
-    public ResponseEntity<Map<String, Object>> getUserDashboard(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getUserDashboard(@PathVariable String userId, WebRequest webRequest) {
         logger.info("Fetching dashboard data for user: {}", userId);
         
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID is required and cannot be empty");
         }
         
+        String eTag = ledgerVersionService.getETag(userId);
+        if (webRequest.checkNotModified(eTag)) {
+            logger.info("Dashboard data not modified for user: {}", userId);
+            return notModified(eTag);
+        }
+        
         Map<String, Object> dashboardData = dashboardService.getDashboardData(userId);
         logger.info("Successfully retrieved dashboard data for user: {}", userId);
-        return ResponseEntity.ok(dashboardData);
+        return withETag(eTag, dashboardData);
     }
 
     /**
      * Get all groups for a user with balance information
      */
     @GetMapping("/users/{userId}/groups")
-    public ResponseEntity<Map<String, Object>> getUserGroups(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getUserGroups(@PathVariable String userId, WebRequest webRequest) {
         logger.info("Fetching groups with balances for user: {}", userId);
         
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID is required and cannot be empty");
         }
         
+        String eTag = ledgerVersionService.getETag(userId);
+        if (webRequest.checkNotModified(eTag)) {
+            logger.info("Groups data not modified for user: {}", userId);
+            return notModified(eTag);
+        }
+        
         Map<String, Object> groupsData = dashboardService.getUserGroupsWithBalances(userId);
         logger.info("Successfully retrieved groups data for user: {}", userId);
-        return ResponseEntity.ok(groupsData);
+        return withETag(eTag, groupsData);
     }
 
     /**
      * Get all friends with whom the current user has balances, including transaction breakdown
      */
     @GetMapping("/users/{userId}/friends")
-    public ResponseEntity<Map<String, Object>> getUserFriends(@PathVariable String userId) {
+    public ResponseEntity<Map<String, Object>> getUserFriends(@PathVariable String userId, WebRequest webRequest) {
         logger.info("Fetching friends with transaction breakdown for user: {}", userId);
         
         if (userId == null || userId.trim().isEmpty()) {
             throw new IllegalArgumentException("User ID is required and cannot be empty");
         }
         
+        String eTag = ledgerVersionService.getETag(userId);
+        if (webRequest.checkNotModified(eTag)) {
+            logger.info("Friends data not modified for user: {}", userId);
+            return notModified(eTag);
+        }
+        
         Map<String, Object> friendsData = dashboardService.getUserFriendsWithTransactions(userId);
         logger.info("Successfully retrieved friends data for user: {}", userId);
-        return ResponseEntity.ok(friendsData);
+        return withETag(eTag, friendsData);
+    }
+
+    /**
+     * Server-sent event stream of live balance changes for a user.
+     * Reconnecting clients resume from the Last-Event-ID header (or the "since" parameter).
+     */
+    @GetMapping(value = "/users/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBalanceChanges(
+            @PathVariable String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(value = "since", required = false) String since) {
+        logger.info("Opening balance stream for user: {}", userId);
+        
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID is required and cannot be empty");
+        }
+        
+        // Ids that cannot be read get a "resync" event rather than an error
+        String cursor = (lastEventId != null && !lastEventId.trim().isEmpty()) ? lastEventId : since;
+        return balanceStreamService.subscribe(userId, cursor);
+    }
+
+    private ResponseEntity<Map<String, Object>> withETag(String eTag, Map<String, Object> body) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+
+    private ResponseEntity<Map<String, Object>> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
     }
 }
\ No newline at end of file
@@ -4,15 +4,34 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import splitwise.dto.CreateExpenseRequest;
+import splitwise.dto.ExpenseFilter;
+import splitwise.dto.ExpenseImportResponse;
+import splitwise.dto.ExpenseImportRow;
+import splitwise.dto.ExpensePageResponse;
 import splitwise.dto.ExpenseResponse;
+import splitwise.dto.ExpenseRevisionResponse;
+import splitwise.dto.ExpenseSearchResponse;
+import splitwise.dto.IngestionStatusResponse;
 import splitwise.model.Expense;
 import splitwise.service.DtoMapperService;
+import splitwise.service.ExpenseExportService;
+import splitwise.service.ExpenseImportService;
+import splitwise.service.ExpenseIngestionService;
+import splitwise.service.ExpenseRevisionService;
+import splitwise.service.ExpenseSearchService;
 import splitwise.service.ExpenseService;
+import splitwise.service.IdempotencyService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,6 +47,24 @@ public class ExpenseController {
     @Autowired
     private DtoMapperService dtoMapper;
 
+    @Autowired
+    private ExpenseExportService exportService;
+
+    @Autowired
+    private ExpenseImportService importService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ExpenseIngestionService ingestionService;
+
+    @Autowired
+    private ExpenseRevisionService revisionService;
+
+    @Autowired
+    private ExpenseSearchService searchService;
+
     @GetMapping
     public ResponseEntity<List<ExpenseResponse>> getAllExpenses() {
         logger.info("Fetching all expenses");
@@ -39,6 +76,70 @@ public class ExpenseController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Cursor-paginated expense listing, newest first.
+     * Pass the returned nextCursor as "cursor" to fetch the following page.
+     * Archived expenses are only included with includeArchived=true.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ExpensePageResponse> getExpensesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "groupId", required = false) String groupId,
+            @RequestParam(value = "payerId", required = false) String payerId,
+            @RequestParam(value = "participantId", required = false) String participantId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "includeArchived", defaultValue = "false") boolean includeArchived) {
+        logger.info("Fetching expense page (cursor: {}, limit: {}, includeArchived: {})", cursor, limit, includeArchived);
+        
+        ExpenseFilter filter = new ExpenseFilter();
+        filter.setGroupId(groupId);
+        filter.setPayerId(payerId);
+        filter.setParticipantId(participantId);
+        filter.setFrom(from);
+        filter.setTo(to);
+        
+        ExpensePageResponse response = expenseService.getExpensesPage(filter, cursor, limit, includeArchived);
+        logger.info("Found {} expenses, hasMore: {}", response.getItems().size(), response.isHasMore());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams the full expense history of a user (the caller by default) as NDJSON or CSV.
+     * Rows are written as they are read from the database, nothing is buffered server-side.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "userId", required = false) String userId,
+            Authentication authentication) {
+        String resolvedFormat = exportService.resolveFormat(format);
+        String exportUserId = (userId == null || userId.isBlank()) ? authentication.getName() : userId;
+        logger.info("Exporting expenses of user {} as {}", exportUserId, resolvedFormat);
+
+        StreamingResponseBody body = out -> exportService.exportUserExpenses(exportUserId, resolvedFormat, out);
+        return exportResponse("expenses-" + exportUserId, resolvedFormat, body);
+    }
+
+    /**
+     * Full-text search over expense titles and descriptions, best matches first.
+     * Searches the caller's expenses, or the expenses of a group the caller belongs to when groupId is given.
+     * Words may be prefixes ("airb go" matches "Airbnb Goa").
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ExpenseSearchResponse> searchExpenses(
+            @RequestParam("q") String query,
+            @RequestParam(value = "groupId", required = false) String groupId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            Authentication authentication) {
+        ExpenseSearchResponse response = groupId != null
+                ? searchService.searchGroupExpenses(groupId, authentication.getName(), query, limit)
+                : searchService.searchUserExpenses(authentication.getName(), query, limit);
+        logger.info("Search '{}' found {} expenses in {} us", query, response.getTotalMatches(), response.getTookMicros());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{expenseId}")
     public ResponseEntity<ExpenseResponse> getExpenseById(@PathVariable("expenseId") String expenseId) {
         logger.info("Fetching expense with ID: {}", expenseId);
@@ -48,10 +149,21 @@ public class ExpenseController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Creates an expense. Safe to retry with the same Idempotency-Key header:
+     * the retry returns the original response instead of creating a second expense.
+     */
     @PostMapping
-    public ResponseEntity<ExpenseResponse> addExpense(@Valid @RequestBody CreateExpenseRequest request) {
+    public ResponseEntity<ExpenseResponse> addExpense(
+            @Valid @RequestBody CreateExpenseRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
         logger.info("Adding new expense: {}", request.getTitle());
-        
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "POST /api/expenses",
+                request, ExpenseResponse.class, () -> createExpense(request));
+    }
+
+    private ResponseEntity<ExpenseResponse> createExpense(CreateExpenseRequest request) {
         Expense expense = expenseService.addExpense(
                 request.getTitle(),
                 request.getDescription(),
@@ -60,7 +172,8 @@ public class ExpenseController {
                 request.getParticipantIds(),
                 request.getSplitType(),
                 request.getSplitDetails(),
-                request.getIsSettleUp()
+                request.getIsSettleUp(),
+                request.getCurrency()
         );
         
         ExpenseResponse response = dtoMapper.toExpenseResponse(expense);
@@ -68,14 +181,25 @@ public class ExpenseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Creates a group expense. Supports the Idempotency-Key header like addExpense.
+     */
     @PostMapping("/group")
-    public ResponseEntity<ExpenseResponse> addGroupExpense(@Valid @RequestBody CreateExpenseRequest request) {
+    public ResponseEntity<ExpenseResponse> addGroupExpense(
+            @Valid @RequestBody CreateExpenseRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
         logger.info("Adding new group expense: {}", request.getTitle());
         
         if (request.getGroupId() == null || request.getGroupId().trim().isEmpty()) {
             throw new IllegalArgumentException("Group ID is required for group expenses");
         }
         
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "POST /api/expenses/group",
+                request, ExpenseResponse.class, () -> createGroupExpense(request));
+    }
+
+    private ResponseEntity<ExpenseResponse> createGroupExpense(CreateExpenseRequest request) {
         Expense expense = expenseService.addGroupExpense(
                 request.getTitle(),
                 request.getDescription(),
@@ -85,7 +209,8 @@ public class ExpenseController {
                 request.getParticipantIds(),
                 request.getSplitType(),
                 request.getSplitDetails(),
-                request.getIsSettleUp()
+                request.getIsSettleUp(),
+                request.getCurrency()
         );
         
         ExpenseResponse response = dtoMapper.toExpenseResponse(expense);
@@ -93,6 +218,63 @@ public class ExpenseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Asynchronous expense creation: the request is validated and queued, and 202 Accepted is
+     * returned with the URL to poll for the outcome. A group expense is created when groupId is set.
+     * Returns 429 Too Many Requests when the ingestion queue is full or the server is shutting down.
+     * 202 is best-effort: queued jobs are kept in memory and are lost if the server stops before
+     * they are processed, so clients should poll until the job is COMPLETED or FAILED.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<IngestionStatusResponse> addExpenseAsync(
+            @Valid @RequestBody CreateExpenseRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        logger.info("Queueing new expense: {}", request.getTitle());
+        
+        if (request.getGroupId() != null && request.getGroupId().trim().isEmpty()) {
+            request.setGroupId(null);
+        }
+        
+        return idempotencyService.execute(idempotencyKey, authentication.getName(), "POST /api/expenses/async",
+                request, IngestionStatusResponse.class, () -> {
+                    IngestionStatusResponse status = ingestionService.submit(request);
+                    logger.info("Queued expense as ingestion job {}", status.getJobId());
+                    return ResponseEntity.accepted()
+                            .header(HttpHeaders.LOCATION, status.getStatusUrl())
+                            .body(status);
+                });
+    }
+
+    @GetMapping("/ingestion/{jobId}")
+    public ResponseEntity<IngestionStatusResponse> getIngestionStatus(
+            @PathVariable("jobId") String jobId, Authentication authentication) {
+        return ResponseEntity.ok(ingestionService.getStatus(jobId, authentication.getName()));
+    }
+
+    /**
+     * Bulk import of expenses as a JSON array.
+     * Valid rows are imported, invalid ones are reported with their position in the batch.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ExpenseImportResponse> importExpenses(@RequestBody List<ExpenseImportRow> rows) {
+        logger.info("Importing {} expenses", rows.size());
+        ExpenseImportResponse response = importService.importExpenses(rows);
+        logger.info("Imported {} expenses, {} rows failed", response.getImported(), response.getFailed());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Bulk import of expenses as CSV (header row first).
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ExpenseImportResponse> importExpensesCsv(@RequestBody String csv) {
+        logger.info("Importing expenses from CSV");
+        ExpenseImportResponse response = importService.importCsv(csv);
+        logger.info("Imported {} expenses, {} rows failed", response.getImported(), response.getFailed());
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{expenseId}")
     public ResponseEntity<ExpenseResponse> editExpense(
             @PathVariable("expenseId") String expenseId,
@@ -116,6 +298,26 @@ public class ExpenseController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Revisions of an expense, oldest first, with the fields each edit changed.
+     */
+    @GetMapping("/{expenseId}/history")
+    public ResponseEntity<List<ExpenseRevisionResponse>> getExpenseHistory(@PathVariable("expenseId") String expenseId) {
+        logger.info("Fetching history of expense with ID: {}", expenseId);
+        return ResponseEntity.ok(revisionService.getHistory(expenseId));
+    }
+
+    /**
+     * The expense as it was at one of its revisions (1 = as created).
+     */
+    @GetMapping("/{expenseId}/history/{revision}")
+    public ResponseEntity<ExpenseRevisionResponse> getExpenseRevision(
+            @PathVariable("expenseId") String expenseId,
+            @PathVariable("revision") int revision) {
+        logger.info("Fetching revision {} of expense with ID: {}", revision, expenseId);
+        return ResponseEntity.ok(revisionService.getRevision(expenseId, revision));
+    }
+
     @DeleteMapping("/{expenseId}")
     public ResponseEntity<Void> deleteExpense(@PathVariable("expenseId") String expenseId) {
         logger.info("Deleting expense with ID: {}", expenseId);
@@ -133,4 +335,13 @@ public class ExpenseController {
                 .collect(Collectors.toList());
         return ResponseEntity.ok(response);
     }
+
+    static ResponseEntity<StreamingResponseBody> exportResponse(String baseName, String format, StreamingResponseBody body) {
+        boolean csv = ExpenseExportService.FORMAT_CSV.equals(format);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + baseName + (csv ? ".csv" : ".ndjson") + "\"")
+                .body(body);
+    }
 }
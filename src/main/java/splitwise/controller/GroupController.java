@@ -2,13 +2,23 @@ package splitwise.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import splitwise.dto.ActivityPageResponse;
+import splitwise.dto.CreateSplitRuleRequest;
+import splitwise.dto.GroupMemberPageResponse;
+import splitwise.dto.GroupResponse;
 import splitwise.model.Group;
+import splitwise.model.GroupSplitRule;
+import splitwise.service.ActivityFeedService;
+import splitwise.service.ExpenseExportService;
 import splitwise.service.GroupService;
+import splitwise.service.SplitRuleService;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,8 +33,17 @@ public class GroupController {
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private ExpenseExportService exportService;
+
+    @Autowired
+    private SplitRuleService splitRuleService;
+
+    @Autowired
+    private ActivityFeedService activityFeedService;
+
     @PostMapping
-    public ResponseEntity<Group> createGroup(@RequestBody Map<String, Object> request, Authentication authentication) {
+    public ResponseEntity<GroupResponse> createGroup(@RequestBody Map<String, Object> request, Authentication authentication) {
         logger.info("Creating group with request: {}", request);
         
         String name = (String) request.get("name");
@@ -44,27 +63,74 @@ public class GroupController {
 
         Group group = groupService.createGroup(name, description, userIds,currentUserId);
         logger.info("Successfully created group with ID: {} and name: {}", group.getGroupId(), group.getName());
-        return ResponseEntity.status(HttpStatus.CREATED).body(group);
+        return ResponseEntity.status(HttpStatus.CREATED).body(groupService.getGroupResponse(group.getGroupId()));
     }
 
     @GetMapping
-    public ResponseEntity<List<Group>> getAllGroups() {
+    public ResponseEntity<List<GroupResponse>> getAllGroups() {
         logger.info("Fetching all groups");
         List<Group> groups = groupService.getAllGroups();
         logger.info("Found {} groups", groups.size());
-        return ResponseEntity.ok(groups);
+        return ResponseEntity.ok(groupService.getGroupResponses(groups));
     }
 
     @GetMapping("/{groupId}")
-    public ResponseEntity<Group> getGroupById(@PathVariable String groupId) {
+    public ResponseEntity<GroupResponse> getGroupById(@PathVariable String groupId) {
         logger.info("Fetching group with ID: {}", groupId);
-        Group group = groupService.getGroup(groupId);
+        GroupResponse group = groupService.getGroupResponse(groupId);
         logger.info("Successfully found group: {}", group.getName());
         return ResponseEntity.ok(group);
     }
 
+    /**
+     * Cursor-paginated member listing, ordered by user ID.
+     * Pass the returned nextCursor as "cursor" to fetch the following page.
+     */
+    @GetMapping("/{groupId}/members")
+    public ResponseEntity<GroupMemberPageResponse> getGroupMembers(
+            @PathVariable String groupId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        logger.info("Fetching members of group {} (cursor: {}, limit: {})", groupId, cursor, limit);
+        GroupMemberPageResponse response = groupService.getMembersPage(groupId, cursor, limit);
+        logger.info("Found {} members, hasMore: {}", response.getItems().size(), response.isHasMore());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Cursor-paginated activity of the group, newest first. Only members can read it.
+     * Pass the returned nextCursor as "cursor" to fetch the following page.
+     */
+    @GetMapping("/{groupId}/activity")
+    public ResponseEntity<ActivityPageResponse> getGroupActivity(
+            @PathVariable String groupId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            Authentication authentication) {
+        logger.info("Fetching activity of group {} (cursor: {}, limit: {})", groupId, cursor, limit);
+        ActivityPageResponse response = activityFeedService.getGroupFeed(groupId, authentication.getName(), cursor, limit);
+        logger.info("Found {} activity entries, hasMore: {}", response.getItems().size(), response.isHasMore());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams the full expense history of a group as NDJSON or CSV.
+     */
+    @GetMapping("/{groupId}/export")
+    public ResponseEntity<StreamingResponseBody> exportGroupExpenses(
+            @PathVariable String groupId,
+            @RequestParam(value = "format", required = false) String format) {
+        String resolvedFormat = exportService.resolveFormat(format);
+        // Fail with 400 before the response is committed if the group does not exist
+        groupService.getGroup(groupId);
+        logger.info("Exporting expenses of group {} as {}", groupId, resolvedFormat);
+
+        StreamingResponseBody body = out -> exportService.exportGroupExpenses(groupId, resolvedFormat, out);
+        return ExpenseController.exportResponse("group-" + groupId, resolvedFormat, body);
+    }
+
     @PostMapping("/{groupId}/users")
-    public ResponseEntity<Group> addUserToGroup(@PathVariable String groupId, @RequestBody Map<String, String> request) {
+    public ResponseEntity<GroupResponse> addUserToGroup(@PathVariable String groupId, @RequestBody Map<String, String> request) {
         logger.info("Adding user to group {} with request: {}", groupId, request);
         
         String userId = request.get("userId");
@@ -72,18 +138,18 @@ public class GroupController {
             throw new IllegalArgumentException("User ID is required and cannot be empty");
         }
 
-        Group group = groupService.addUserToGroup(groupId, userId);
+        groupService.addUserToGroup(groupId, userId);
         logger.info("Successfully added user {} to group {}", userId, groupId);
-        return ResponseEntity.ok(group);
+        return ResponseEntity.ok(groupService.getGroupResponse(groupId));
     }
 
     @DeleteMapping("/{groupId}/users/{userId}")
-    public ResponseEntity<Group> removeUserFromGroup(@PathVariable String groupId, @PathVariable String userId) {
+    public ResponseEntity<GroupResponse> removeUserFromGroup(@PathVariable String groupId, @PathVariable String userId) {
         logger.info("Removing user {} from group {}", userId, groupId);
         
-        Group group = groupService.removeUserFromGroup(groupId, userId);
+        groupService.removeUserFromGroup(groupId, userId);
         logger.info("Successfully removed user {} from group {}", userId, groupId);
-        return ResponseEntity.ok(group);
+        return ResponseEntity.ok(groupService.getGroupResponse(groupId));
     }
 
     @DeleteMapping("/{groupId}")
@@ -95,14 +161,40 @@ public class GroupController {
     }
 
     @PutMapping("/{groupId}")
-    public ResponseEntity<Group> updateGroup(@PathVariable String groupId, @RequestBody Map<String, String> request) {
+    public ResponseEntity<GroupResponse> updateGroup(@PathVariable String groupId, @RequestBody Map<String, String> request) {
         logger.info("Updating group {} with request: {}", groupId, request);
         
         String name = request.get("name");
         String description = request.get("description");
 
-        Group group = groupService.updateGroup(groupId, name, description);
+        groupService.updateGroup(groupId, name, description);
         logger.info("Successfully updated group with ID: {}", groupId);
-        return ResponseEntity.ok(group);
+        return ResponseEntity.ok(groupService.getGroupResponse(groupId));
+    }
+
+    /**
+     * Registers a custom split rule, used by CUSTOM_RULE_SPLIT expenses with
+     * splitDetails {"rule": "<name>", "variables": {...}}.
+     */
+    @PostMapping("/{groupId}/split-rules")
+    public ResponseEntity<GroupSplitRule> createSplitRule(@PathVariable String groupId,
+                                                          @Valid @RequestBody CreateSplitRuleRequest request,
+                                                          Authentication authentication) {
+        logger.info("Creating split rule {} in group {}: {}", request.getName(), groupId, request.getFormula());
+        GroupSplitRule rule = splitRuleService.createRule(groupId, request, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(rule);
+    }
+
+    @GetMapping("/{groupId}/split-rules")
+    public ResponseEntity<List<GroupSplitRule>> getSplitRules(@PathVariable String groupId) {
+        return ResponseEntity.ok(splitRuleService.getRules(groupId));
+    }
+
+    @DeleteMapping("/{groupId}/split-rules/{name}")
+    public ResponseEntity<Void> deleteSplitRule(@PathVariable String groupId, @PathVariable String name,
+                                                Authentication authentication) {
+        logger.info("Deleting split rule {} from group {}", name, groupId);
+        splitRuleService.deleteRule(groupId, name, authentication.getName());
+        return ResponseEntity.noContent().build();
     }
 }
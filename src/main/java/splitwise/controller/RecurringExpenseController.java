@@ -0,0 +1,70 @@
+package splitwise.controller;
+
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import splitwise.dto.CreateRecurringExpenseRequest;
+import splitwise.dto.RecurringExpenseResponse;
+import splitwise.model.RecurringExpense;
+import splitwise.service.RecurringExpenseService;
+
+import java.util.List;
+
+/**
+ * RecurringExpenseController - Recurring expenses of the authenticated user
+ *
+ * The cron rule accepts 5 fields (minute hour day month weekday) or 6 with seconds first,
+ * e.g. "0 9 1 * *" for 09:00 on the first of every month. A group expense is created
+ * when groupId is set.
+ */
+@RestController
+@RequestMapping("/api/recurring-expenses")
+public class RecurringExpenseController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringExpenseController.class);
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @PostMapping
+    public ResponseEntity<RecurringExpenseResponse> createRecurringExpense(
+            @Valid @RequestBody CreateRecurringExpenseRequest request,
+            Authentication authentication) {
+        logger.info("Creating recurring expense: {} ({})", request.getTitle(), request.getCron());
+
+        if (request.getGroupId() != null && request.getGroupId().trim().isEmpty()) {
+            request.setGroupId(null);
+        }
+
+        RecurringExpense template = recurringExpenseService.createRecurringExpense(request, authentication.getName());
+        logger.info("Successfully created recurring expense with ID: {}, first run at {}", template.getId(), template.getNextRunAt());
+        return ResponseEntity.status(HttpStatus.CREATED).body(recurringExpenseService.toResponse(template));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<RecurringExpenseResponse>> getRecurringExpenses(Authentication authentication) {
+        List<RecurringExpenseResponse> responses = recurringExpenseService.getRecurringExpenses(authentication.getName()).stream()
+                .map(recurringExpenseService::toResponse)
+                .toList();
+        return ResponseEntity.ok(responses);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RecurringExpenseResponse> getRecurringExpense(
+            @PathVariable("id") String id, Authentication authentication) {
+        RecurringExpense template = recurringExpenseService.getRecurringExpense(id, authentication.getName());
+        return ResponseEntity.ok(recurringExpenseService.toResponse(template));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRecurringExpense(@PathVariable("id") String id, Authentication authentication) {
+        logger.info("Deleting recurring expense with ID: {}", id);
+        recurringExpenseService.deleteRecurringExpense(id, authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -7,9 +7,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import splitwise.dto.ActivityPageResponse;
 import splitwise.dto.UpdateUserRequest;
 import splitwise.dto.UserResponse;
 import splitwise.model.User;
+import splitwise.service.ActivityFeedService;
 import splitwise.service.DtoMapperService;
 import splitwise.service.UserService;
 
@@ -28,6 +30,9 @@ public class UserController {
     @Autowired
     private DtoMapperService dtoMapper;
 
+    @Autowired
+    private ActivityFeedService activityFeedService;
+
     @GetMapping
     public ResponseEntity<List<UserResponse>> getAllUsers() {
         logger.info("Fetching all users");
@@ -57,6 +62,22 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Cursor-paginated activity the current user is involved in, newest first.
+     * Pass the returned nextCursor as "cursor" to fetch the following page.
+     */
+    @GetMapping("/me/activity")
+    public ResponseEntity<ActivityPageResponse> getCurrentUserActivity(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            Authentication authentication) {
+        String userId = authentication.getName();
+        logger.info("Fetching activity of user {} (cursor: {}, limit: {})", userId, cursor, limit);
+        ActivityPageResponse response = activityFeedService.getUserFeed(userId, cursor, limit);
+        logger.info("Found {} activity entries, hasMore: {}", response.getItems().size(), response.isHasMore());
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{userId}")
     public ResponseEntity<UserResponse> updateUser(
             @PathVariable("userId") String userId,
@@ -73,7 +94,7 @@ public class UserController {
         }
         
         logger.info("Updating user with ID: {}", userId);
-        User user = userService.updateUser(userId, request.getName(), request.getEmail(), request.getMobile());
+        User user = userService.updateUser(userId, request.getName(), request.getEmail(), request.getMobile(), request.getCurrency());
         UserResponse response = dtoMapper.toUserResponse(user);
         logger.info("Successfully updated user with ID: {}", userId);
         return ResponseEntity.ok(response);
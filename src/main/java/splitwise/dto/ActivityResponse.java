@@ -0,0 +1,21 @@
+package splitwise.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+public class ActivityResponse {
+    private Long id;
+    private String type;
+    private String groupId;
+    private String actorId;
+    private String expenseId;
+    private String memberId;
+    private String title;
+    private Double amount;
+    private String currency;
+    private LocalDateTime createdAt;
+}
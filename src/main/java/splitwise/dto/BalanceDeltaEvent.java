@@ -0,0 +1,21 @@
+package splitwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compact balance change pushed to a user over the balance stream.
+ * A positive delta means the counterparty now owes the user more (or the user owes less).
+ * The delta is in the user's currency, the one balances are shown in.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceDeltaEvent {
+    private long seq;
+    private String counterpartyId;
+    private double delta;
+    private String currency;
+    private long timestamp;
+}
@@ -4,6 +4,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import splitwise.util.SplitTypes;
 
@@ -17,6 +18,10 @@ public class CreateExpenseRequest {
     @Positive(message = "Amount must be positive")
     private Double amount;
 
+    // ISO 4217 code, the base currency when omitted
+    @Size(min = 3, max = 3, message = "Currency must be a 3-letter ISO code")
+    private String currency;
+
     @NotBlank(message = "Title is required")
     private String title;
     
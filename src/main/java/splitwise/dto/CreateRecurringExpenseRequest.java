@@ -0,0 +1,24 @@
+package splitwise.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * An expense to create on a schedule. cron uses the Spring format with seconds
+ * ("0 0 9 1 * *" = 9:00 on the 1st of every month); a 5-field Unix cron is also accepted.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CreateRecurringExpenseRequest extends CreateExpenseRequest {
+
+    @NotBlank(message = "Cron expression is required")
+    private String cron;
+
+    // First occurrence not before this time, defaults to now
+    private LocalDateTime startAt;
+
+    private LocalDateTime endAt;
+}
@@ -0,0 +1,26 @@
+package splitwise.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * A custom split rule for a group, e.g.
+ * {"name": "rent", "formula": "0.8 * roomSize / sum(roomSize) + 0.2 / n",
+ *  "variables": {"roomSize": {"u1": 14, "u2": 9}}}
+ */
+@Data
+public class CreateSplitRuleRequest {
+
+    @NotBlank(message = "Rule name is required")
+    @Size(max = 100, message = "Rule name cannot be longer than 100 characters")
+    private String name;
+
+    @NotBlank(message = "Formula is required")
+    private String formula;
+
+    // Default per-member values: variable -> user ID -> value
+    private Map<String, Map<String, Double>> variables;
+}
@@ -0,0 +1,17 @@
+package splitwise.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for expense listings. Null fields are not applied.
+ */
+@Data
+public class ExpenseFilter {
+    private String groupId;
+    private String payerId;
+    private String participantId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -0,0 +1,25 @@
+package splitwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ExpenseImportResponse {
+    private int totalRows;
+    private int imported;
+    private int failed;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row; // 1-based position in the submitted batch
+        private String message;
+    }
+}
@@ -0,0 +1,17 @@
+package splitwise.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * One expense of a bulk import. Same fields as a regular expense creation,
+ * plus the original date of the expense (defaults to the import time).
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ExpenseImportRow extends CreateExpenseRequest {
+
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,16 @@
+package splitwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpensePageResponse {
+    private List<ExpenseResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
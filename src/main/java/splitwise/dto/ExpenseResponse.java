@@ -13,6 +13,7 @@ public class ExpenseResponse {
     private String title;
     private String description;
     private Double amount;
+    private String currency;
     private SplitTypes splitType;
     private UserSummaryDTO payer;
     private List<UserSummaryDTO> participants;
@@ -0,0 +1,20 @@
+package splitwise.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ExpenseRevisionResponse {
+    private String expenseId;
+    private int revision;
+    private String editedBy;
+    private LocalDateTime editedAt;
+    private List<String> changedFields;
+
+    // The expense as of this revision, only set when a single revision is requested
+    private Map<String, Object> expense;
+    private Map<String, Double> shares;
+}
@@ -0,0 +1,16 @@
+package splitwise.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ExpenseSearchHit {
+    private String id;
+    private String title;
+    private String description;
+    private LocalDateTime timestamp;
+    private String payerId;
+    private String groupId;
+    private double score;
+}
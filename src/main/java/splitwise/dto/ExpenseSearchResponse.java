@@ -0,0 +1,17 @@
+package splitwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseSearchResponse {
+    private String query;
+    private List<ExpenseSearchHit> items;
+    private int totalMatches;
+    private long tookMicros;
+}
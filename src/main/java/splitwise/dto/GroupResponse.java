@@ -0,0 +1,19 @@
+package splitwise.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A group with its member count and, where requested, the first page of its members.
+ * The following pages are fetched from GET /api/groups/{groupId}/members.
+ */
+@Data
+@NoArgsConstructor
+public class GroupResponse {
+    private String groupId;
+    private String name;
+    private String description;
+    private UserSummaryDTO createdBy;
+    private long memberCount;
+    private GroupMemberPageResponse members;
+}
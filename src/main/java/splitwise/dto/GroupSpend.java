@@ -0,0 +1,16 @@
+package splitwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupSpend {
+    private String groupId;   // null for expenses outside any group
+    private String groupName;
+    private double paid;
+    private double owed;
+    private long expenseCount;
+}
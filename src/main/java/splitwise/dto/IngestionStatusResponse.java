@@ -0,0 +1,20 @@
+package splitwise.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an expense submitted through asynchronous ingestion.
+ * Status is one of QUEUED, PROCESSING, COMPLETED or FAILED.
+ */
+@Data
+public class IngestionStatusResponse {
+    private String jobId;
+    private String status;
+    private String statusUrl;
+    private String expenseId;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,15 @@
+package splitwise.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlySpend {
+    private String month; // yyyy-MM
+    private double paid;
+    private double owed;
+    private long expenseCount;
+}
@@ -0,0 +1,30 @@
+package splitwise.dto;
+
+import lombok.Data;
+import splitwise.util.SplitTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class RecurringExpenseResponse {
+    private String id;
+    private String title;
+    private String description;
+    private Double amount;
+    private String currency;
+    private String payerId;
+    private String groupId;
+    private List<String> participantIds;
+    private SplitTypes splitType;
+    private Map<String, Object> splitDetails;
+    private String cron;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime endAt;
+    private LocalDateTime lastRunAt;
+    private long occurrenceCount;
+    private String lastError;
+    private boolean active;
+    private LocalDateTime createdAt;
+}
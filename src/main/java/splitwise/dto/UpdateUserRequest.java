@@ -1,6 +1,7 @@
 package splitwise.dto;
 
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
@@ -12,4 +13,8 @@ public class UpdateUserRequest {
     private String email;
     
     private String mobile;
+
+    // Currency balances are shown in, ISO 4217
+    @Size(min = 3, max = 3, message = "Currency must be a 3-letter ISO code")
+    private String currency;
 }
\ No newline at end of file
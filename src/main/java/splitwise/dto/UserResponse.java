@@ -8,5 +8,6 @@ public class UserResponse {
     private String name;
     private String email;
     private String mobile;
+    private String currency;
     private String role;
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package splitwise.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by BalanceSheet whenever a UserPair balance is changed.
+ * A positive amount means the debtor now owes the creditor more, a negative amount less.
+ * The amount is in the currency the pair's balance is kept in.
+ */
+public class BalanceChangedEvent extends ApplicationEvent {
+    private final String debtorId;
+    private final String creditorId;
+    private final double amount;
+    private final String currency;
+
+    public BalanceChangedEvent(Object source, String debtorId, String creditorId, double amount, String currency) {
+        super(source);
+        this.debtorId = debtorId;
+        this.creditorId = creditorId;
+        this.amount = amount;
+        this.currency = currency;
+    }
+
+    public String getDebtorId() {
+        return debtorId;
+    }
+
+    public String getCreditorId() {
+        return creditorId;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+}
@@ -0,0 +1,20 @@
+package splitwise.event;
+
+import org.springframework.context.ApplicationEvent;
+import splitwise.model.Expense;
+
+/**
+ * Published when an expense is deleted. Balances are already reversed when this event is published.
+ */
+public class ExpenseDeletedEvent extends ApplicationEvent {
+    private final Expense expense;
+
+    public ExpenseDeletedEvent(Object source, Expense expense) {
+        super(source);
+        this.expense = expense;
+    }
+
+    public Expense getExpense() {
+        return expense;
+    }
+}
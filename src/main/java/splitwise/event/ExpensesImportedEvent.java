@@ -0,0 +1,23 @@
+package splitwise.event;
+
+import org.springframework.context.ApplicationEvent;
+import splitwise.model.Expense;
+
+import java.util.List;
+
+/**
+ * Published once per bulk import, instead of one ExpenseAddedEvent per expense.
+ * Balances are already applied by the importer when this event is published.
+ */
+public class ExpensesImportedEvent extends ApplicationEvent {
+    private final List<Expense> expenses;
+
+    public ExpensesImportedEvent(Object source, List<Expense> expenses) {
+        super(source);
+        this.expenses = expenses;
+    }
+
+    public List<Expense> getExpenses() {
+        return expenses;
+    }
+}
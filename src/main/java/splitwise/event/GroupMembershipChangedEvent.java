@@ -0,0 +1,31 @@
+package splitwise.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a user joins or leaves a group, within the transaction of the change.
+ */
+public class GroupMembershipChangedEvent extends ApplicationEvent {
+    private final String groupId;
+    private final String userId;
+    private final boolean joined;
+
+    public GroupMembershipChangedEvent(Object source, String groupId, String userId, boolean joined) {
+        super(source);
+        this.groupId = groupId;
+        this.userId = userId;
+        this.joined = joined;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public boolean isJoined() {
+        return joined;
+    }
+}
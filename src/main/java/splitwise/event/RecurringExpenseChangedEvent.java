@@ -0,0 +1,28 @@
+package splitwise.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a recurring expense is created, rescheduled or removed.
+ * nextRunAt is null when the template no longer has occurrences to create.
+ */
+public class RecurringExpenseChangedEvent extends ApplicationEvent {
+    private final String templateId;
+    private final LocalDateTime nextRunAt;
+
+    public RecurringExpenseChangedEvent(Object source, String templateId, LocalDateTime nextRunAt) {
+        super(source);
+        this.templateId = templateId;
+        this.nextRunAt = nextRunAt;
+    }
+
+    public String getTemplateId() {
+        return templateId;
+    }
+
+    public LocalDateTime getNextRunAt() {
+        return nextRunAt;
+    }
+}
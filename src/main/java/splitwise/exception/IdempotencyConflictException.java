@@ -0,0 +1,7 @@
+package splitwise.exception;
+
+public class IdempotencyConflictException extends SplitwiseException {
+    public IdempotencyConflictException(String message) {
+        super(message, "IDEMPOTENCY_CONFLICT");
+    }
+}
@@ -0,0 +1,14 @@
+package splitwise.exception;
+
+public class IngestionQueueFullException extends SplitwiseException {
+    private final int retryAfterSeconds;
+
+    public IngestionQueueFullException(String message, int retryAfterSeconds) {
+        super(message, "INGESTION_QUEUE_FULL");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,66 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only activity feed, see ActivityFeedService.
+ *
+ * Entries are never updated: an edited or deleted expense adds an entry of its own.
+ * The generated ID orders the feed and is the position the feed cursors point to.
+ */
+@Entity
+@Table(name = "activity_feed", indexes = {
+    @Index(name = "idx_activity_feed_group", columnList = "group_id,id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ActivityEntry {
+
+    public enum Type {
+        EXPENSE_ADDED,
+        EXPENSE_UPDATED,
+        EXPENSE_DELETED,
+        SETTLEMENT,
+        MEMBER_JOINED,
+        MEMBER_LEFT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    // Null for activity outside groups
+    @Column(name = "group_id")
+    private String groupId;
+
+    // User who made the change, null for scheduled changes
+    @Column(name = "actor_id")
+    private String actorId;
+
+    @Column(name = "expense_id")
+    private String expenseId;
+
+    // User who joined or left
+    @Column(name = "member_id")
+    private String memberId;
+
+    private String title;
+
+    private Double amount;
+
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,39 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * An activity entry delivered to a user's inbox, see ActivityFeedService.
+ * The primary key (user_id, activity_id) is the index the user feed is read from.
+ */
+@Entity
+@Table(name = "activity_inbox")
+@IdClass(ActivityInboxEntry.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class ActivityInboxEntry {
+
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @Id
+    @Column(name = "activity_id")
+    private Long activityId;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String userId;
+        private Long activityId;
+    }
+}
@@ -0,0 +1,54 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Balance carried forward from archived expenses: what debtor owed creditor through the
+ * expenses of one group (or outside any group) that were moved to the archive.
+ *
+ * Views that compute balances from expenses (group balances, per-friend breakdowns) add these
+ * rows to the hot expenses, so archiving never changes a balance. Amounts are in the base currency.
+ */
+@Entity
+@Table(name = "archived_balance_carry",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"group_key", "debtor_id", "creditor_id"}),
+       indexes = {
+           @Index(name = "idx_carry_debtor", columnList = "debtor_id"),
+           @Index(name = "idx_carry_creditor", columnList = "creditor_id")
+       })
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchivedBalanceCarry {
+
+    public static final String NO_GROUP = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Group id, or NO_GROUP for expenses outside any group
+    @Column(name = "group_key", nullable = false)
+    private String groupKey;
+
+    @Column(name = "debtor_id", nullable = false)
+    private String debtorId;
+
+    @Column(name = "creditor_id", nullable = false)
+    private String creditorId;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Version
+    private Long version;
+
+    public ArchivedBalanceCarry(String groupKey, String debtorId, String creditorId) {
+        this.groupKey = groupKey;
+        this.debtorId = debtorId;
+        this.creditorId = creditorId;
+    }
+}
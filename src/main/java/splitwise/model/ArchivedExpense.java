@@ -0,0 +1,112 @@
+package splitwise.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import splitwise.util.SplitTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An expense moved to the cold archive tier by ExpenseArchiveService.
+ * Same columns as Expense, bucketed by month of the expense (yyyyMM) for range scans and
+ * bulk maintenance. Archived expenses are read-only.
+ */
+@Entity
+@Table(name = "expenses_archive", indexes = {
+    @Index(name = "idx_expense_archive_month", columnList = "archive_month"),
+    @Index(name = "idx_expense_archive_payer", columnList = "payer_id"),
+    @Index(name = "idx_expense_archive_group_timestamp", columnList = "group_id,timestamp"),
+    @Index(name = "idx_expense_archive_timestamp", columnList = "timestamp")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class ArchivedExpense {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String title;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "split_type")
+    private SplitTypes splitType;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(length = 3)
+    private String currency;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payer_id", nullable = false)
+    private User payer;
+
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+        name = "expense_participants_archive",
+        joinColumns = @JoinColumn(name = "expense_id"),
+        inverseJoinColumns = @JoinColumn(name = "user_id"),
+        indexes = @Index(name = "idx_expense_participant_archive_user", columnList = "user_id")
+    )
+    @BatchSize(size = 100)
+    private List<User> participants;
+
+    @Column(name = "shares_packed")
+    private byte[] sharesPacked;
+
+    @Column(name = "split_details")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> splitDetails;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "group_id")
+    private Group group;
+
+    @Column(name = "is_settle_up")
+    private Boolean isSettleUp;
+
+    @Column(name = "archive_month", nullable = false)
+    private int archiveMonth;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Returns a detached, read-only Expense view of this archived expense,
+     * e.g. to reuse the regular response mapping.
+     */
+    public Expense toExpense() {
+        Expense expense = new Expense();
+        expense.setId(id);
+        expense.setTitle(title);
+        expense.setDescription(description);
+        expense.setSplitType(splitType);
+        expense.setAmount(amount);
+        expense.setCurrency(currency);
+        expense.setPayer(payer);
+        expense.setParticipants(participants != null ? new ArrayList<>(participants) : null);
+        expense.restorePackedShares(sharesPacked);
+        expense.setSplitDetails(splitDetails);
+        expense.setTimestamp(timestamp);
+        expense.setGroup(group);
+        expense.setIsSettleUp(isSettleUp);
+        return expense;
+    }
+}
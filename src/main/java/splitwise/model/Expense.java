@@ -4,27 +4,36 @@ import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
+import splitwise.util.SharesCodec;
 import splitwise.util.SplitTypes;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Entity
 @Table(name = "expenses", indexes = {
     @Index(name = "idx_expense_payer", columnList = "payer_id"),
     @Index(name = "idx_expense_group", columnList = "group_id"),
+    @Index(name = "idx_expense_group_timestamp", columnList = "group_id,timestamp"),
     @Index(name = "idx_expense_timestamp", columnList = "timestamp")
 })
 @Getter
 @Setter
 @NoArgsConstructor
+@EntityListeners(ExpenseShareUsersListener.class)
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Expense {
 
@@ -42,6 +51,10 @@ public class Expense {
 
     @Column(nullable = false)
     private double amount;
+
+    // ISO 4217 code of amount and shares, null for expenses recorded before currencies (base currency)
+    @Column(length = 3)
+    private String currency;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payer_id", nullable = false)
@@ -52,21 +65,41 @@ public class Expense {
     @JoinTable(
         name = "expense_participants",
         joinColumns = @JoinColumn(name = "expense_id"),
-        inverseJoinColumns = @JoinColumn(name = "user_id")
+        inverseJoinColumns = @JoinColumn(name = "user_id"),
+        indexes = @Index(name = "idx_expense_participant_user", columnList = "user_id")
     )
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    @BatchSize(size = 100)
     private List<User> participants;
     
-    @ElementCollection
-    @CollectionTable(
-        name = "expense_shares",
-        joinColumns = @JoinColumn(name = "expense_id")
-    )
-    @MapKeyJoinColumn(name = "user_id")
-    @Column(name = "share_amount")
+    // Shares packed as (user id, amount) pairs, see SharesCodec.
+    // expense_participants stays the narrow per-user index of the same users.
+    @Column(name = "shares_packed")
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] sharesPacked;
+
+    // Shares keyed by participant, materialized from sharesPacked on first access
+    @Transient
     @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private Map<User, Double> shares;
 
+    // The packed array the shares map was materialized from
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] sharesSource;
+
+    // Looks up the users behind share ids that are not participants, set by ExpenseShareUsersListener
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private Function<Collection<String>, Map<String, User>> shareUserResolver;
+
     @Column(name = "split_details")
     @JdbcTypeCode(SqlTypes.JSON)
     private Map<String, Object> splitDetails;
@@ -92,22 +125,85 @@ public class Expense {
         this.splitType = splitType;
         this.payer = payer;
         this.participants = participants;
-        this.shares = shares;
+        setShares(shares);
         this.splitDetails = splitDetails;
         this.timestamp = timestamp;
         this.isSettleUp = isSettleUp;
     }
     
+    @JsonIgnore
+    public Map<User, Double> getShares() {
+        if (sharesPacked == null) {
+            return shares;
+        }
+        if (shares == null || sharesSource != sharesPacked) {
+            shares = unpackShares();
+            sharesSource = sharesPacked;
+        }
+        return shares;
+    }
+
+    public void setShares(Map<User, Double> shares) {
+        this.shares = shares;
+        if (shares == null) {
+            this.sharesPacked = null;
+            return;
+        }
+        Map<String, Double> byUserId = new LinkedHashMap<>();
+        for (Map.Entry<User, Double> share : shares.entrySet()) {
+            byUserId.put(share.getKey().getUserId(), share.getValue());
+        }
+        this.sharesPacked = SharesCodec.encode(byUserId);
+        this.sharesSource = this.sharesPacked;
+    }
+
+    // Used to rebuild an expense from the archive tier with its packed shares as stored
+    void restorePackedShares(byte[] packed) {
+        this.sharesPacked = packed;
+        this.shares = null;
+        this.sharesSource = null;
+    }
+
+    // Maps the packed user ids back to the participant entities
+    private Map<User, Double> unpackShares() {
+        Map<String, User> participantsById = new HashMap<>();
+        if (participants != null) {
+            for (User participant : participants) {
+                participantsById.put(participant.getUserId(), participant);
+            }
+        }
+        Map<String, Double> decoded = SharesCodec.decode(sharesPacked);
+
+        // Shares of users no longer listed as participants are kept so balances can still be reversed
+        List<String> nonParticipantIds = new ArrayList<>();
+        for (String userId : decoded.keySet()) {
+            if (!participantsById.containsKey(userId)) {
+                nonParticipantIds.add(userId);
+            }
+        }
+        if (!nonParticipantIds.isEmpty()) {
+            if (shareUserResolver == null) {
+                throw new IllegalStateException("Cannot resolve share users of expense " + id);
+            }
+            participantsById.putAll(shareUserResolver.apply(nonParticipantIds));
+        }
+
+        Map<User, Double> unpacked = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> share : decoded.entrySet()) {
+            User user = participantsById.get(share.getKey());
+            // Users deleted since cannot hold a balance anymore, nothing to show or reverse for them
+            if (user != null) {
+                unpacked.put(user, share.getValue());
+            }
+        }
+        return unpacked;
+    }
+    
     @JsonGetter("shares")
     public Map<String, Double> getSharesForJson() {
-        if (shares == null) {
+        if (sharesPacked == null) {
             return new HashMap<>();
         }
-        
-        Map<String, Double> result = new HashMap<>();
-        for (Map.Entry<User, Double> entry : shares.entrySet()) {
-            result.put(entry.getKey().getUserId(), entry.getValue());
-        }
-        return result;
+        return SharesCodec.decode(sharesPacked);
     }
 }
@@ -0,0 +1,60 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One revision of an expense, see ExpenseRevisionService.
+ *
+ * A snapshot holds every field and all the shares. Any other revision is a delta against the
+ * previous one: only the fields that changed, and only the shares that were added or changed
+ * (sharesRemoved lists the users whose share was dropped).
+ */
+@Entity
+@Table(name = "expense_revisions",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"expense_id", "revision"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExpenseRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "expense_id", nullable = false)
+    private String expenseId;
+
+    // 1 for the expense as created, then one per edit
+    @Column(nullable = false)
+    private int revision;
+
+    @Column(nullable = false)
+    private boolean snapshot;
+
+    // Field name -> value, all fields for a snapshot
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> fields;
+
+    // Shares packed with SharesCodec, all shares for a snapshot
+    @Column(name = "shares_packed")
+    private byte[] sharesPacked;
+
+    // Names of the fields this revision changed, comma-separated ("shares" included), empty for revision 1
+    @Column(name = "changed_fields", length = 500)
+    private String changedFields;
+
+    // Null for revision 1 when the expense was created before revisions were recorded
+    @Column(name = "edited_by")
+    private String editedBy;
+
+    @Column(name = "edited_at", nullable = false)
+    private LocalDateTime editedAt;
+}
@@ -0,0 +1,25 @@
+package splitwise.model;
+
+import jakarta.persistence.PostLoad;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import splitwise.service.UserService;
+
+/**
+ * ExpenseShareUsersListener - Lets loaded expenses resolve the users behind their packed shares
+ *
+ * - Shares of users that are still participants map to the participant entities
+ * - Shares of users removed from the participants are looked up through UserService,
+ *   only when the shares are first read
+ * - UserService is looked up lazily since the listener is created with the entity manager factory
+ */
+public class ExpenseShareUsersListener {
+
+    @Autowired
+    private ObjectProvider<UserService> userService;
+
+    @PostLoad
+    public void attachShareUserResolver(Expense expense) {
+        expense.setShareUserResolver(ids -> userService.getObject().findUsers(ids));
+    }
+}
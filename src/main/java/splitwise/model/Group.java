@@ -1,5 +1,6 @@
 package splitwise.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -19,13 +20,15 @@ public class Group {
     @Id
     private String groupId;
     
+    // Unbounded: never serialized, members are listed page by page (see GroupService.getMembersPage)
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "group_users",
         joinColumns = @JoinColumn(name = "group_id"),
-        inverseJoinColumns = @JoinColumn(name = "user_id")
+        inverseJoinColumns = @JoinColumn(name = "user_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_group_users_group_user", columnNames = {"group_id", "user_id"})
     )
-    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    @JsonIgnore
     private List<User> userList;
     
     @Column(nullable = false)
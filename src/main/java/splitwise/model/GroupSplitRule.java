@@ -0,0 +1,46 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A custom split rule registered by a group, used by CUSTOM_RULE_SPLIT expenses of that group.
+ * The formula is described in splitwise.util.Formula; variables holds default per-member values
+ * (variable -> user ID -> value) that an expense may override.
+ */
+@Entity
+@Table(name = "group_split_rules",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"group_id", "name"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class GroupSplitRule {
+
+    @Id
+    private String id;
+
+    @Column(name = "group_id", nullable = false)
+    private String groupId;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(nullable = false, length = 500)
+    private String formula;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Map<String, Double>> variables;
+
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,94 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import splitwise.util.SplitTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template of an expense created on a schedule (rent, utilities, subscriptions).
+ * A cron rule gives the occurrences; nextRunAt is the next one still to be created.
+ * Occurrences are created as the owner, through the regular expense flow.
+ */
+@Entity
+@Table(name = "recurring_expenses", indexes = {
+    @Index(name = "idx_recurring_active_next_run", columnList = "active,next_run_at"),
+    @Index(name = "idx_recurring_owner", columnList = "owner_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecurringExpense {
+
+    @Id
+    private String id;
+
+    // The user who created the template, occurrences are created on their behalf
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private String title;
+
+    private String description;
+
+    @Column(nullable = false)
+    private double amount;
+
+    @Column(length = 3)
+    private String currency;
+
+    @Column(name = "payer_id", nullable = false)
+    private String payerId;
+
+    @Column(name = "group_id")
+    private String groupId;
+
+    @Column(name = "participant_ids")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<String> participantIds;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "split_type", nullable = false)
+    private SplitTypes splitType;
+
+    @Column(name = "split_details")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> splitDetails;
+
+    // Spring cron expression: second minute hour day-of-month month day-of-week
+    @Column(nullable = false)
+    private String cron;
+
+    @Column(name = "next_run_at")
+    private LocalDateTime nextRunAt;
+
+    // Optional, no occurrence is created after it
+    @Column(name = "end_at")
+    private LocalDateTime endAt;
+
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+
+    @Column(name = "occurrence_count", nullable = false)
+    private long occurrenceCount;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Version
+    private Long version;
+}
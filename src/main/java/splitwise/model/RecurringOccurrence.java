@@ -0,0 +1,44 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One created occurrence of a recurring expense. The unique (template, scheduled time) key
+ * guarantees an occurrence is created at most once, even with several application instances.
+ */
+@Entity
+@Table(name = "recurring_occurrences",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"template_id", "scheduled_at"}))
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecurringOccurrence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "template_id", nullable = false)
+    private String templateId;
+
+    @Column(name = "scheduled_at", nullable = false)
+    private LocalDateTime scheduledAt;
+
+    @Column(name = "expense_id", nullable = false)
+    private String expenseId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public RecurringOccurrence(String templateId, LocalDateTime scheduledAt, String expenseId) {
+        this.templateId = templateId;
+        this.scheduledAt = scheduledAt;
+        this.expenseId = expenseId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
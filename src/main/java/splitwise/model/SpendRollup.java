@@ -0,0 +1,49 @@
+package splitwise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Monthly spend of a user within one group (or outside any group), maintained by SpendRollupService.
+ * - paid: total of the expenses the user paid for
+ * - owed: total of the user's shares
+ * - expenseCount: number of expenses the user paid for or takes part in
+ * Settle-ups are not spending and are left out.
+ */
+@Entity
+@Table(name = "spend_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "month_key", "group_key"}),
+       indexes = @Index(name = "idx_spend_rollup_user_month", columnList = "user_id,month_key"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class SpendRollup {
+
+    public static final String NO_GROUP = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    // Group id, or NO_GROUP for expenses outside any group
+    @Column(name = "group_key", nullable = false)
+    private String groupKey;
+
+    // yyyyMM
+    @Column(name = "month_key", nullable = false)
+    private int month;
+
+    @Column(nullable = false)
+    private double paid;
+
+    @Column(nullable = false)
+    private double owed;
+
+    @Column(name = "expense_count", nullable = false)
+    private long expenseCount;
+}
@@ -30,6 +30,10 @@ public class User {
     private String email;
     
     private String mobile;
+
+    // Currency balances are shown in, null for the base currency
+    @Column(length = 3)
+    private String currency;
     
     @Column(name = "password_hash")
     private String passwordHash;
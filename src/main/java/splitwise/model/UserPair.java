@@ -38,6 +38,10 @@ public class UserPair {
     
     @Column(nullable = false)
     private Double balance = 0.0;
+
+    // Currency the balance is kept in, set by the first expense between the pair; null for the base currency
+    @Column(length = 3)
+    private String currency;
     
     @Version
     private Long version;
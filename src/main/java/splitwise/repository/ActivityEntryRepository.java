@@ -0,0 +1,30 @@
+package splitwise.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.ActivityEntry;
+
+import java.util.List;
+
+@Repository
+public interface ActivityEntryRepository extends JpaRepository<ActivityEntry, Long> {
+
+    /**
+     * Entries of a group, newest first, strictly before the given entry ID.
+     */
+    @Query("SELECT a FROM ActivityEntry a WHERE a.groupId = :groupId AND a.id < :beforeId ORDER BY a.id DESC")
+    List<ActivityEntry> findGroupFeed(@Param("groupId") String groupId, @Param("beforeId") long beforeId, Limit limit);
+
+    /**
+     * Entries in a user's inbox, newest first, strictly before the given entry ID.
+     */
+    @Query("""
+        SELECT a FROM ActivityInboxEntry i JOIN ActivityEntry a ON a.id = i.activityId
+        WHERE i.userId = :userId AND i.activityId < :beforeId
+        ORDER BY i.activityId DESC
+        """)
+    List<ActivityEntry> findUserFeed(@Param("userId") String userId, @Param("beforeId") long beforeId, Limit limit);
+}
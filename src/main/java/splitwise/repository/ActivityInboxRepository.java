@@ -0,0 +1,9 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import splitwise.model.ActivityInboxEntry;
+
+@Repository
+public interface ActivityInboxRepository extends JpaRepository<ActivityInboxEntry, ActivityInboxEntry.Key> {
+}
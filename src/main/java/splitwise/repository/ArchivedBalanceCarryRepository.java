@@ -0,0 +1,23 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.ArchivedBalanceCarry;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedBalanceCarryRepository extends JpaRepository<ArchivedBalanceCarry, Long> {
+
+    Optional<ArchivedBalanceCarry> findByGroupKeyAndDebtorIdAndCreditorId(String groupKey, String debtorId, String creditorId);
+
+    @Query("SELECT c FROM ArchivedBalanceCarry c WHERE c.debtorId = :userId OR c.creditorId = :userId")
+    List<ArchivedBalanceCarry> findByUserId(@Param("userId") String userId);
+
+    @Query("SELECT c FROM ArchivedBalanceCarry c WHERE c.groupKey = :groupId " +
+           "AND (c.debtorId = :userId OR c.creditorId = :userId)")
+    List<ArchivedBalanceCarry> findByGroupAndUserId(@Param("groupId") String groupId, @Param("userId") String userId);
+}
@@ -0,0 +1,66 @@
+package splitwise.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.ArchivedExpense;
+
+import java.util.stream.Stream;
+
+/**
+ * Read access to the archive tier. Archived expenses are only written by ExpenseArchiveService.
+ */
+@Repository
+public interface ArchivedExpenseRepository extends JpaRepository<ArchivedExpense, String>, JpaSpecificationExecutor<ArchivedExpense> {
+
+    /**
+     * Archive counterpart of ExpenseRepository.streamLedgerByUser, same row layout.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.id, e.title, e.description, e.amount, e.splitType, e.timestamp,
+               e.payer.userId, g.groupId, e.isSettleUp, e.sharesPacked, e.currency
+        FROM ArchivedExpense e LEFT JOIN e.group g
+        WHERE e.payer.userId = :userId
+           OR EXISTS (SELECT 1 FROM ArchivedExpense e2 JOIN e2.participants p WHERE e2 = e AND p.userId = :userId)
+        ORDER BY e.timestamp, e.id
+        """)
+    Stream<Object[]> streamLedgerByUser(@Param("userId") String userId);
+
+    /**
+     * Archive counterpart of ExpenseRepository.streamLedgerByGroup, same row layout.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.id, e.title, e.description, e.amount, e.splitType, e.timestamp,
+               e.payer.userId, g.groupId, e.isSettleUp, e.sharesPacked, e.currency
+        FROM ArchivedExpense e JOIN e.group g
+        WHERE g.groupId = :groupId
+        ORDER BY e.timestamp, e.id
+        """)
+    Stream<Object[]> streamLedgerByGroup(@Param("groupId") String groupId);
+
+    /**
+     * Archive counterpart of ExpenseRepository.streamRollupRows, same row layout.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.payer.userId, g.groupId, e.timestamp, e.amount, e.isSettleUp, e.sharesPacked, e.currency
+        FROM ArchivedExpense e LEFT JOIN e.group g
+        """)
+    Stream<Object[]> streamRollupRows();
+}
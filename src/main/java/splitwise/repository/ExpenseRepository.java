@@ -1,21 +1,123 @@
 package splitwise.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import splitwise.model.Expense;
 import splitwise.model.Group;
 import splitwise.model.User;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Expense listing methods fetch payer and group in the same query, participants are
+ * batch-fetched and shares are stored inline (see Expense), so mapping a list to
+ * ExpenseResponse costs a fixed number of queries instead of several per expense.
+ */
 @Repository
-public interface ExpenseRepository extends JpaRepository<Expense, String> {
+public interface ExpenseRepository extends JpaRepository<Expense, String>, JpaSpecificationExecutor<Expense> {
+    
+    @Override
+    @EntityGraph(attributePaths = {"payer", "group"})
+    List<Expense> findAll();
     
+    @EntityGraph(attributePaths = {"payer", "group"})
     List<Expense> findByPayer(User payer);
     
+    @EntityGraph(attributePaths = {"payer", "group"})
     @Query("SELECT e FROM Expense e JOIN e.participants p WHERE p.userId = :userId")
     List<Expense> findByParticipantId(String userId);
     
+    @EntityGraph(attributePaths = {"payer", "group"})
     List<Expense> findByGroup(Group group);
+
+    /**
+     * Expenses older than the cutoff, oldest first, strictly after the (timestamp, id) position.
+     * Used by the archival job to walk old history chunk by chunk.
+     */
+    @EntityGraph(attributePaths = {"payer", "group"})
+    @Query("""
+        SELECT e FROM Expense e
+        WHERE e.timestamp < :cutoff
+          AND (e.timestamp > :afterTimestamp OR (e.timestamp = :afterTimestamp AND e.id > :afterId))
+        ORDER BY e.timestamp, e.id
+        """)
+    List<Expense> findOlderThan(@Param("cutoff") LocalDateTime cutoff,
+                                @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                @Param("afterId") String afterId,
+                                Limit limit);
+
+    /**
+     * Streams every expense a user paid for or takes part in, oldest first.
+     * Returns: [id, title, description, amount, splitType, timestamp, payerId, groupId, isSettleUp, sharesPacked, currency]
+     * Must be consumed inside a transaction; rows are fetched through a forward-only cursor.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.id, e.title, e.description, e.amount, e.splitType, e.timestamp,
+               e.payer.userId, g.groupId, e.isSettleUp, e.sharesPacked, e.currency
+        FROM Expense e LEFT JOIN e.group g
+        WHERE e.payer.userId = :userId
+           OR EXISTS (SELECT 1 FROM Expense e2 JOIN e2.participants p WHERE e2 = e AND p.userId = :userId)
+        ORDER BY e.timestamp, e.id
+        """)
+    Stream<Object[]> streamLedgerByUser(@Param("userId") String userId);
+    
+    /**
+     * Streams every expense of a group, oldest first.
+     * Same row layout and usage as streamLedgerByUser.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.id, e.title, e.description, e.amount, e.splitType, e.timestamp,
+               e.payer.userId, g.groupId, e.isSettleUp, e.sharesPacked, e.currency
+        FROM Expense e JOIN e.group g
+        WHERE g.groupId = :groupId
+        ORDER BY e.timestamp, e.id
+        """)
+    Stream<Object[]> streamLedgerByGroup(@Param("groupId") String groupId);
+    
+    /**
+     * Streams what the search index needs from every expense.
+     * Returns: [id, title, description, timestamp, payerId, groupId, sharesPacked]
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.id, e.title, e.description, e.timestamp, e.payer.userId, g.groupId, e.sharesPacked
+        FROM Expense e LEFT JOIN e.group g
+        """)
+    Stream<Object[]> streamSearchDocuments();
+    
+    /**
+     * Streams what spend rollups are computed from, for every expense.
+     * Returns: [payerId, groupId, timestamp, amount, isSettleUp, sharesPacked, currency]
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT e.payer.userId, g.groupId, e.timestamp, e.amount, e.isSettleUp, e.sharesPacked, e.currency
+        FROM Expense e LEFT JOIN e.group g
+        """)
+    Stream<Object[]> streamRollupRows();
 }
\ No newline at end of file
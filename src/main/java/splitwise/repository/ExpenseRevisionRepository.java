@@ -0,0 +1,34 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.ExpenseRevision;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExpenseRevisionRepository extends JpaRepository<ExpenseRevision, Long> {
+
+    List<ExpenseRevision> findByExpenseIdOrderByRevision(String expenseId);
+
+    Optional<ExpenseRevision> findTopByExpenseIdOrderByRevisionDesc(String expenseId);
+
+    /**
+     * The snapshot a revision is rebuilt from: the latest one at or before it.
+     */
+    Optional<ExpenseRevision> findTopByExpenseIdAndSnapshotTrueAndRevisionLessThanEqualOrderByRevisionDesc(
+            String expenseId, int revision);
+
+    /**
+     * The deltas to apply on top of a snapshot, in order.
+     */
+    List<ExpenseRevision> findByExpenseIdAndRevisionBetweenOrderByRevision(String expenseId, int from, int to);
+
+    @Modifying
+    @Query("DELETE FROM ExpenseRevision r WHERE r.expenseId = :expenseId")
+    void deleteByExpenseId(@Param("expenseId") String expenseId);
+}
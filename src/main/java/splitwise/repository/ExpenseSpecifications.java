@@ -0,0 +1,87 @@
+package splitwise.repository;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import splitwise.dto.ExpenseFilter;
+import splitwise.model.User;
+import splitwise.util.ExpenseCursor;
+
+/**
+ * Specifications for filtered, keyset-paginated expense listings.
+ *
+ * Listings are ordered by (timestamp DESC, id DESC) and continue strictly after the cursor,
+ * so every page is an index range scan on idx_expense_timestamp (or idx_expense_group_timestamp
+ * when filtering by group), whatever the size of the table.
+ * The same specifications serve the archive tier (ArchivedExpense has the same attributes).
+ */
+public final class ExpenseSpecifications {
+
+    public static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
+    private ExpenseSpecifications() {
+    }
+
+    /**
+     * Builds the specification for a page: all non-null filters plus the keyset condition.
+     */
+    public static <T> Specification<T> forPage(ExpenseFilter filter, ExpenseCursor cursor) {
+        Specification<T> spec = Specification.unrestricted();
+        if (filter != null) {
+            if (filter.getGroupId() != null) {
+                spec = spec.and(inGroup(filter.getGroupId()));
+            }
+            if (filter.getPayerId() != null) {
+                spec = spec.and(paidBy(filter.getPayerId()));
+            }
+            if (filter.getParticipantId() != null) {
+                spec = spec.and(withParticipant(filter.getParticipantId()));
+            }
+            if (filter.getFrom() != null) {
+                spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("timestamp"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                spec = spec.and((root, query, cb) -> cb.lessThan(root.get("timestamp"), filter.getTo()));
+            }
+        }
+        if (cursor != null) {
+            spec = spec.and(after(cursor));
+        }
+        return spec;
+    }
+
+    public static <T> Specification<T> inGroup(String groupId) {
+        return (root, query, cb) -> cb.equal(root.get("group").get("groupId"), groupId);
+    }
+
+    public static <T> Specification<T> paidBy(String payerId) {
+        return (root, query, cb) -> cb.equal(root.get("payer").get("userId"), payerId);
+    }
+
+    /**
+     * Expenses the user participates in, as an EXISTS subquery so rows are never duplicated.
+     */
+    public static <T> Specification<T> withParticipant(String userId) {
+        return (root, query, cb) -> {
+            Subquery<String> subquery = query.subquery(String.class);
+            Root<T> subRoot = subquery.from(root.getModel().getBindableJavaType());
+            Join<T, User> participant = subRoot.join("participants");
+            subquery.select(subRoot.get("id"))
+                    .where(cb.equal(subRoot.get("id"), root.get("id")),
+                           cb.equal(participant.get("userId"), userId));
+            return cb.exists(subquery);
+        };
+    }
+
+    /**
+     * Keyset condition: strictly after the cursor in (timestamp DESC, id DESC) order.
+     */
+    public static <T> Specification<T> after(ExpenseCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("timestamp"), cursor.getTimestamp()),
+                cb.and(cb.equal(root.get("timestamp"), cursor.getTimestamp()),
+                       cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
@@ -1,12 +1,16 @@
 package splitwise.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import splitwise.model.Group;
+import splitwise.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +27,46 @@ public interface GroupRepository extends JpaRepository<Group, String> {
     @EntityGraph(attributePaths = {"userList"})
     @Query("SELECT DISTINCT g FROM Group g JOIN g.userList u WHERE u.userId = :userId")
     List<Group> findGroupsWithMembersByUserId(@Param("userId") String userId);
+    
+    /**
+     * IDs of the members of a group, without loading the users.
+     */
+    @Query("SELECT u.userId FROM Group g JOIN g.userList u WHERE g.groupId = :groupId")
+    List<String> findMemberIds(@Param("groupId") String groupId);
+    
+    /**
+     * Members of a group ordered by user ID, strictly after the given user ID ("" for the first page).
+     */
+    @Query("""
+        SELECT u FROM Group g JOIN g.userList u
+        WHERE g.groupId = :groupId AND u.userId > :afterUserId
+        ORDER BY u.userId
+        """)
+    List<User> findMembersAfter(@Param("groupId") String groupId, @Param("afterUserId") String afterUserId, Limit limit);
+    
+    /**
+     * Member count of each of the given groups, as [groupId, count] rows.
+     */
+    @Query("SELECT g.groupId, COUNT(u) FROM Group g LEFT JOIN g.userList u WHERE g.groupId IN :groupIds GROUP BY g.groupId")
+    List<Object[]> countMembers(@Param("groupIds") Collection<String> groupIds);
+    
+    /**
+     * Increments the version of a group and locks its row until the transaction ends,
+     * so membership changes of the same group are applied one at a time.
+     * Returns 0 when the group does not exist.
+     */
+    @Modifying
+    @Query("UPDATE Group g SET g.version = g.version + 1 WHERE g.groupId = :groupId")
+    int lockForMembershipChange(@Param("groupId") String groupId);
+    
+    /**
+     * Adds a single membership row, without loading or rewriting the member list.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO group_users (group_id, user_id) VALUES (:groupId, :userId)", nativeQuery = true)
+    int insertMember(@Param("groupId") String groupId, @Param("userId") String userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM group_users WHERE group_id = :groupId AND user_id = :userId", nativeQuery = true)
+    int deleteMember(@Param("groupId") String groupId, @Param("userId") String userId);
 }
\ No newline at end of file
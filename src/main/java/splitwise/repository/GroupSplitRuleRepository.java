@@ -0,0 +1,23 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.GroupSplitRule;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GroupSplitRuleRepository extends JpaRepository<GroupSplitRule, String> {
+
+    List<GroupSplitRule> findByGroupIdOrderByName(String groupId);
+
+    Optional<GroupSplitRule> findByGroupIdAndName(String groupId, String name);
+
+    @Modifying
+    @Query("DELETE FROM GroupSplitRule r WHERE r.groupId = :groupId")
+    void deleteByGroupId(@Param("groupId") String groupId);
+}
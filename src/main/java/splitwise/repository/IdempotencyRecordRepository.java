@@ -0,0 +1,53 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import splitwise.model.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes go through bulk statements so that concurrent requests race on the primary key
+ * in the database instead of in the persistence context.
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserves a key. Fails with a DataIntegrityViolationException if the key already exists.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at, expires_at)
+        VALUES (:key, :requestHash, :createdAt, :expiresAt)
+        """, nativeQuery = true)
+    int insert(@Param("key") String key, @Param("requestHash") String requestHash,
+               @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody, " +
+           "r.expiresAt = :expiresAt WHERE r.key = :key")
+    int complete(@Param("key") String key, @Param("statusCode") int statusCode,
+                 @Param("responseBody") String responseBody, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key")
+    int deleteByKey(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,23 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.RecurringExpense;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, String> {
+
+    List<RecurringExpense> findByOwnerIdOrderByCreatedAt(String ownerId);
+
+    /**
+     * Active templates due before the given time, as [id, nextRunAt].
+     * Served by idx_recurring_active_next_run, only the due templates are read.
+     */
+    @Query("SELECT r.id, r.nextRunAt FROM RecurringExpense r WHERE r.active = true AND r.nextRunAt < :before")
+    List<Object[]> findDueBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,13 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import splitwise.model.RecurringOccurrence;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RecurringOccurrenceRepository extends JpaRepository<RecurringOccurrence, Long> {
+
+    boolean existsByTemplateIdAndScheduledAt(String templateId, LocalDateTime scheduledAt);
+}
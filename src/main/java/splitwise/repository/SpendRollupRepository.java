@@ -0,0 +1,34 @@
+package splitwise.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import splitwise.model.SpendRollup;
+
+import java.util.List;
+
+@Repository
+public interface SpendRollupRepository extends JpaRepository<SpendRollup, Long> {
+
+    List<SpendRollup> findByUserIdAndMonthBetween(String userId, int fromMonth, int toMonth);
+
+    List<SpendRollup> findByUserIdAndGroupKeyAndMonthBetween(String userId, String groupKey, int fromMonth, int toMonth);
+
+    /**
+     * Adds to a rollup row in place, so concurrent expenses never lose an update.
+     * Returns 0 when the row does not exist yet.
+     */
+    @Modifying
+    @Query(value = "UPDATE spend_rollups SET paid = paid + :paid, owed = owed + :owed, " +
+                   "expense_count = expense_count + :count " +
+                   "WHERE user_id = :userId AND group_key = :groupKey AND month_key = :month", nativeQuery = true)
+    int addToRollup(@Param("userId") String userId, @Param("groupKey") String groupKey, @Param("month") int month,
+                    @Param("paid") double paid, @Param("owed") double owed, @Param("count") long count);
+
+    @Modifying
+    @Query(value = "INSERT INTO spend_rollups (user_id, group_key, month_key, paid, owed, expense_count) " +
+                   "VALUES (:userId, :groupKey, :month, 0, 0, 0)", nativeQuery = true)
+    void insertEmpty(@Param("userId") String userId, @Param("groupKey") String groupKey, @Param("month") int month);
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 import splitwise.model.User;
 import splitwise.model.UserPair;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,17 +19,51 @@ public interface UserPairRepository extends JpaRepository<UserPair, Long> {
     @Query("SELECT up FROM UserPair up WHERE up.user1 = :user OR up.user2 = :user")
     List<UserPair> findByUser(User user);
     
+    /**
+     * Balances of every pair involving one of the given users.
+     * Returns: [user1Id, user2Id, balance, currency]
+     */
+    @Query("SELECT up.user1.userId, up.user2.userId, up.balance, up.currency FROM UserPair up " +
+           "WHERE up.user1.userId IN :userIds OR up.user2.userId IN :userIds")
+    List<Object[]> findBalancesInvolving(@Param("userIds") Collection<String> userIds);
+    
+    /**
+     * What keeps a user from leaving a group or from being deleted, answered in one round trip.
+     * - With a group ID: the user's non-zero balances with members of that group
+     * - With "" as group ID: all the user's non-zero balances, then the groups the user belongs to
+     * Returns: [kind ("BALANCE" or "GROUP"), id, name, balance, currency],
+     * the balance being positive when the counterparty owes the user
+     */
+    @Query(value = """
+        SELECT 'BALANCE' AS kind, u.user_id AS id, u.name AS name,
+               CASE WHEN up.user1_id = :userId THEN -up.balance ELSE up.balance END AS balance,
+               up.currency AS currency
+        FROM user_pairs up
+        JOIN users u ON u.user_id = CASE WHEN up.user1_id = :userId THEN up.user2_id ELSE up.user1_id END
+        WHERE (up.user1_id = :userId OR up.user2_id = :userId)
+          AND ABS(up.balance) > 0.001
+          AND (:groupId = '' OR EXISTS (
+              SELECT 1 FROM group_users gu WHERE gu.group_id = :groupId AND gu.user_id = u.user_id))
+        UNION ALL
+        SELECT 'GROUP', g.group_id, g.name, NULL, NULL
+        FROM group_users gu
+        JOIN groups g ON g.group_id = gu.group_id
+        WHERE gu.user_id = :userId AND :groupId = ''
+        """, nativeQuery = true)
+    List<Object[]> findUnsettled(@Param("userId") String userId, @Param("groupId") String groupId);
+    
     /**
      * Optimized query to get net balances for all users with aggregation.
-     * Returns: [User, owedAmount, owesAmount]
+     * Returns: [User, owedAmount, owesAmount, currency], one row per user and pair currency
      */
     @Query("""
         SELECT u,
                SUM(CASE WHEN up.user2 = u THEN up.balance ELSE 0 END) as owedAmount,
-               SUM(CASE WHEN up.user1 = u THEN up.balance ELSE 0 END) as owesAmount
+               SUM(CASE WHEN up.user1 = u THEN up.balance ELSE 0 END) as owesAmount,
+               up.currency
         FROM User u
         LEFT JOIN UserPair up ON (up.user1 = u OR up.user2 = u)
-        GROUP BY u
+        GROUP BY u, up.currency
         HAVING SUM(CASE WHEN up.user2 = u THEN up.balance ELSE 0 END) != 0
             OR SUM(CASE WHEN up.user1 = u THEN up.balance ELSE 0 END) != 0
         """)
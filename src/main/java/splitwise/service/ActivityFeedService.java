@@ -0,0 +1,287 @@
+package splitwise.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import splitwise.dto.ActivityPageResponse;
+import splitwise.dto.ActivityResponse;
+import splitwise.event.ExpenseAddedEvent;
+import splitwise.event.ExpenseDeletedEvent;
+import splitwise.event.ExpenseUpdatedEvent;
+import splitwise.event.ExpensesImportedEvent;
+import splitwise.event.GroupMembershipChangedEvent;
+import splitwise.model.ActivityEntry;
+import splitwise.model.Expense;
+import splitwise.repository.ActivityEntryRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ActivityFeedService - Group and user activity feeds
+ *
+ * - Expense and membership events append entries to activity_feed, in the transaction of the change
+ * - Fan-out on write: each entry is also delivered to the inbox of the users it involves
+ *   (payer and participants, or the member who joined or left), so a user's feed is a single
+ *   index range read. Entries are not fanned out to whole groups, which keeps a write bounded
+ *   by the size of the expense rather than of the group; group-wide activity is read from the group feed
+ * - Both feeds are read newest first with keyset pagination on the entry ID
+ */
+@Service
+public class ActivityFeedService {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final String INSERT_ENTRY = "INSERT INTO activity_feed " +
+            "(type, group_id, actor_id, expense_id, member_id, title, amount, currency, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private ActivityEntryRepository activityEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GroupMembershipService groupMembershipService;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    /**
+     * Event listener for expense added events. Settle-ups are recorded as settlements.
+     */
+    @EventListener
+    @Transactional
+    public void handleExpenseAdded(ExpenseAddedEvent event) {
+        Expense expense = event.getExpense();
+        recordExpense(expense, Boolean.TRUE.equals(expense.getIsSettleUp())
+                ? ActivityEntry.Type.SETTLEMENT : ActivityEntry.Type.EXPENSE_ADDED);
+    }
+
+    /**
+     * Event listener for expense updated events.
+     */
+    @EventListener
+    @Transactional
+    public void handleExpenseUpdated(ExpenseUpdatedEvent event) {
+        recordExpense(event.getExpense(), ActivityEntry.Type.EXPENSE_UPDATED);
+    }
+
+    /**
+     * Event listener for expense deleted events.
+     */
+    @EventListener
+    @Transactional
+    public void handleExpenseDeleted(ExpenseDeletedEvent event) {
+        recordExpense(event.getExpense(), ActivityEntry.Type.EXPENSE_DELETED);
+    }
+
+    /**
+     * Event listener for bulk imports, one entry per imported expense.
+     * All entries are inserted in one JDBC batch, then all their inbox rows in another.
+     */
+    @EventListener
+    @Transactional
+    public void handleExpensesImported(ExpensesImportedEvent event) {
+        List<ActivityEntry> entries = new ArrayList<>(event.getExpenses().size());
+        List<Collection<String>> recipients = new ArrayList<>(event.getExpenses().size());
+        for (Expense expense : event.getExpenses()) {
+            entries.add(expenseEntry(expense, Boolean.TRUE.equals(expense.getIsSettleUp())
+                    ? ActivityEntry.Type.SETTLEMENT : ActivityEntry.Type.EXPENSE_ADDED));
+            recipients.add(involvedUsers(expense));
+        }
+        insertEntries(entries);
+        deliver(entries, recipients);
+    }
+
+    /**
+     * Event listener for group membership changes, delivered to the member who joined or left.
+     */
+    @EventListener
+    @Transactional
+    public void handleMembershipChanged(GroupMembershipChangedEvent event) {
+        ActivityEntry entry = newEntry(event.isJoined() ? ActivityEntry.Type.MEMBER_JOINED : ActivityEntry.Type.MEMBER_LEFT,
+                event.getGroupId());
+        entry.setMemberId(event.getUserId());
+        deliver(List.of(activityEntryRepository.save(entry)), List.of(List.of(event.getUserId())));
+    }
+
+    /**
+     * Returns one page of a group's activity, newest first.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size, defaults to 50 and is capped at 200
+     * @throws IllegalArgumentException if the caller is not a member of the group
+     */
+    @Transactional(readOnly = true)
+    public ActivityPageResponse getGroupFeed(String groupId, String currentUserId, String cursor, Integer limit) {
+        if (!groupMembershipService.getMembership(groupId).contains(currentUserId)) {
+            throw new IllegalArgumentException("You must be a member of the group to view its activity");
+        }
+        int pageSize = pageSize(limit);
+        return toPage(activityEntryRepository.findGroupFeed(groupId, decodeCursor(cursor), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Returns one page of a user's inbox, newest first: the activity the user is involved in.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size, defaults to 50 and is capped at 200
+     */
+    @Transactional(readOnly = true)
+    public ActivityPageResponse getUserFeed(String userId, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        return toPage(activityEntryRepository.findUserFeed(userId, decodeCursor(cursor), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    private void recordExpense(Expense expense, ActivityEntry.Type type) {
+        ActivityEntry entry = activityEntryRepository.save(expenseEntry(expense, type));
+        deliver(List.of(entry), List.of(involvedUsers(expense)));
+    }
+
+    private ActivityEntry expenseEntry(Expense expense, ActivityEntry.Type type) {
+        ActivityEntry entry = newEntry(type, expense.getGroup() != null ? expense.getGroup().getGroupId() : null);
+        entry.setExpenseId(expense.getId());
+        entry.setTitle(expense.getTitle());
+        entry.setAmount(expense.getAmount());
+        entry.setCurrency(currencyService.currencyOf(expense.getCurrency()));
+        return entry;
+    }
+
+    // Read from the packed shares, participants are not loaded
+    private Set<String> involvedUsers(Expense expense) {
+        Set<String> involved = new LinkedHashSet<>();
+        involved.add(expense.getPayer().getUserId());
+        involved.addAll(expense.getSharesForJson().keySet());
+        return involved;
+    }
+
+    private ActivityEntry newEntry(ActivityEntry.Type type, String groupId) {
+        ActivityEntry entry = new ActivityEntry();
+        entry.setType(type);
+        entry.setGroupId(groupId);
+        entry.setActorId(currentUserId());
+        entry.setCreatedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    // The identity ID rules out Hibernate insert batching, so batches of entries are inserted with JDBC
+    private void insertEntries(List<ActivityEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_ENTRY, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        ActivityEntry entry = entries.get(i);
+                        statement.setString(1, entry.getType().name());
+                        statement.setString(2, entry.getGroupId());
+                        statement.setString(3, entry.getActorId());
+                        statement.setString(4, entry.getExpenseId());
+                        statement.setString(5, entry.getMemberId());
+                        statement.setString(6, entry.getTitle());
+                        statement.setObject(7, entry.getAmount(), Types.DOUBLE);
+                        statement.setString(8, entry.getCurrency());
+                        statement.setObject(9, entry.getCreatedAt());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return entries.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    // Inbox rows of all the entries in one batch, recipients aligned with the entries
+    private void deliver(List<ActivityEntry> entries, List<? extends Collection<String>> recipients) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            for (String userId : recipients.get(i)) {
+                rows.add(new Object[]{userId, entries.get(i).getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO activity_inbox (user_id, activity_id) VALUES (?, ?)", rows);
+    }
+
+    // The authenticated user, or null when the change is made by a scheduled job
+    private String currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    private int pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    // The cursor is the ID of the last entry of the previous page
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private ActivityPageResponse toPage(List<ActivityEntry> entries, int pageSize) {
+        // One extra entry tells whether another page exists
+        boolean hasMore = entries.size() > pageSize;
+        List<ActivityEntry> page = hasMore ? entries.subList(0, pageSize) : entries;
+
+        List<ActivityResponse> items = new ArrayList<>(page.size());
+        for (ActivityEntry entry : page) {
+            items.add(toResponse(entry));
+        }
+        String nextCursor = hasMore ? String.valueOf(page.get(page.size() - 1).getId()) : null;
+        return new ActivityPageResponse(items, nextCursor, hasMore);
+    }
+
+    private ActivityResponse toResponse(ActivityEntry entry) {
+        ActivityResponse response = new ActivityResponse();
+        response.setId(entry.getId());
+        response.setType(entry.getType().name());
+        response.setGroupId(entry.getGroupId());
+        response.setActorId(entry.getActorId());
+        response.setExpenseId(entry.getExpenseId());
+        response.setMemberId(entry.getMemberId());
+        response.setTitle(entry.getTitle());
+        response.setAmount(entry.getAmount());
+        response.setCurrency(entry.getCurrency());
+        response.setCreatedAt(entry.getCreatedAt());
+        return response;
+    }
+}
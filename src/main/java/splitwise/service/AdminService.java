@@ -37,6 +37,33 @@ public class AdminService {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Autowired
+    private ArchivedBalanceCarryRepository archivedBalanceCarryRepository;
+
+    @Autowired
+    private SpendRollupRepository spendRollupRepository;
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Autowired
+    private RecurringOccurrenceRepository recurringOccurrenceRepository;
+
+    @Autowired
+    private GroupSplitRuleRepository groupSplitRuleRepository;
+
+    @Autowired
+    private ExpenseRevisionRepository expenseRevisionRepository;
+
+    @Autowired
+    private ActivityEntryRepository activityEntryRepository;
+
+    @Autowired
+    private ActivityInboxRepository activityInboxRepository;
+
     @Autowired
     private CacheManager cacheManager;
 
@@ -49,8 +76,9 @@ public class AdminService {
      * Deletion order:
      * 1. Transactions (no dependencies)
      * 2. UserPairs (balance records)
-     * 3. Expenses (references users and groups)
-     * 4. Groups (references users via many-to-many)
+     * 3. Expenses, archived expenses, their carried-forward balances and spend rollups (reference users and groups)
+     *    and recurring expenses with their occurrences
+     * 4. Group split rules, then groups (references users via many-to-many)
      * 5. Users (referenced by other entities)
      * 6. All caches (balances, users, groups, expenses)
      *
@@ -83,6 +111,39 @@ public class AdminService {
             deletionStats.put("expenses", (int) expenseCount);
             logger.info("Deleted {} expenses", expenseCount);
             
+            long archivedExpenseCount = archivedExpenseRepository.count();
+            archivedExpenseRepository.deleteAllInBatch();
+            archivedBalanceCarryRepository.deleteAllInBatch();
+            deletionStats.put("archivedExpenses", (int) archivedExpenseCount);
+            logger.info("Deleted {} archived expenses", archivedExpenseCount);
+            
+            long revisionCount = expenseRevisionRepository.count();
+            expenseRevisionRepository.deleteAllInBatch();
+            deletionStats.put("expenseRevisions", (int) revisionCount);
+            logger.info("Deleted {} expense revisions", revisionCount);
+            
+            long activityCount = activityEntryRepository.count();
+            activityInboxRepository.deleteAllInBatch();
+            activityEntryRepository.deleteAllInBatch();
+            deletionStats.put("activityEntries", (int) activityCount);
+            logger.info("Deleted {} activity entries", activityCount);
+            
+            long rollupCount = spendRollupRepository.count();
+            spendRollupRepository.deleteAllInBatch();
+            deletionStats.put("spendRollups", (int) rollupCount);
+            logger.info("Deleted {} spend rollups", rollupCount);
+            
+            long recurringCount = recurringExpenseRepository.count();
+            recurringOccurrenceRepository.deleteAllInBatch();
+            recurringExpenseRepository.deleteAllInBatch();
+            deletionStats.put("recurringExpenses", (int) recurringCount);
+            logger.info("Deleted {} recurring expenses", recurringCount);
+            
+            long splitRuleCount = groupSplitRuleRepository.count();
+            groupSplitRuleRepository.deleteAllInBatch();
+            deletionStats.put("splitRules", (int) splitRuleCount);
+            logger.info("Deleted {} split rules", splitRuleCount);
+            
             // 4. Delete Groups (this will also clear the many-to-many relationship with users)
             long groupCount = groupRepository.count();
             groupRepository.deleteAll();
@@ -124,6 +185,7 @@ public class AdminService {
         stats.put("users", userRepository.count());
         stats.put("groups", groupRepository.count());
         stats.put("expenses", expenseRepository.count());
+        stats.put("archivedExpenses", archivedExpenseRepository.count());
         stats.put("userPairs", userPairRepository.count());
         stats.put("transactions", transactionRepository.count());
         
@@ -3,9 +3,13 @@ package splitwise.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.event.BalanceChangedEvent;
 import splitwise.event.ExpenseAddedEvent;
 import splitwise.event.ExpenseUpdatedEvent;
 import splitwise.model.Expense;
@@ -15,6 +19,7 @@ import splitwise.model.UserPair;
 import splitwise.repository.TransactionRepository;
 import splitwise.repository.UserPairRepository;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +39,12 @@ import java.util.Optional;
  * - UserPair: Represents a debt relationship where user1 owes user2 a certain amount
  * - Observer Pattern: Automatically updates balances when expenses change
  * - Net Balance: Overall amount a user owes or is owed across all relationships
+ *
+ * Currencies:
+ * - A UserPair keeps its balance in one currency, the currency of the first expense between the pair
+ * - Expense shares are converted into the pair's currency with the rate of the expense date when posted,
+ *   so the ledger holds one row per pair whatever currencies are used
+ * - Reads convert into the viewer's currency with today's rate; settlements are in the base currency
  */
 @Service
 public class BalanceSheet {
@@ -43,6 +54,21 @@ public class BalanceSheet {
     
     @Autowired
     private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SingleFlightRegistry singleFlightRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CurrencyService currencyService;
     
     /**
      * Event listener for expense added events.
@@ -73,6 +99,8 @@ public class BalanceSheet {
     public void updateBalances(Expense expense) {
         User payer = expense.getPayer();
         Map<User, Double> shares = expense.getShares();
+        String currency = currencyService.currencyOf(expense.getCurrency());
+        LocalDate date = expense.getTimestamp().toLocalDate();
 
         for (Map.Entry<User, Double> entry : shares.entrySet()) {
             User participant = entry.getKey();
@@ -80,64 +108,96 @@ public class BalanceSheet {
 
             // Skip the payer - they don't owe themselves
             if (!participant.equals(payer)) {
-                updateUserPairBalance(participant, payer, amount);
+                updateUserPairBalance(participant, payer, amount, currency, date);
             }
         }
     }
 
     /**
      * Updates or creates a UserPair record for the balance between two users.
+     * The amount is in the base currency.
      */
     @Transactional
     @CacheEvict(value = "balances", allEntries = true)
     public void updateUserPairBalance(User debtor, User creditor, Double amount) {
+        updateUserPairBalance(debtor, creditor, amount, currencyService.getBaseCurrency(), LocalDate.now());
+    }
+
+    /**
+     * Updates or creates a UserPair record for the balance between two users,
+     * converting the amount into the pair's currency with the rate of the given date.
+     * A new pair keeps its balance in the currency of the amount.
+     */
+    @Transactional
+    @CacheEvict(value = "balances", allEntries = true)
+    public void updateUserPairBalance(User debtor, User creditor, Double amount, String currency, LocalDate date) {
         Optional<UserPair> existingPair = userPairRepository.findByUser1AndUser2(debtor, creditor);
+        UserPair pair;
+        double delta;
         
         if (existingPair.isPresent()) {
             // Update existing balance
-            UserPair pair = existingPair.get();
-            pair.setBalance(pair.getBalance() + amount);
-            userPairRepository.save(pair);
+            pair = existingPair.get();
+            delta = currencyService.convert(amount, currency, pair.getCurrency(), date);
+            pair.setBalance(pair.getBalance() + delta);
         } else {
             // Create new UserPair
-            UserPair newPair = new UserPair(debtor, creditor);
-            newPair.setBalance(amount);
-            userPairRepository.save(newPair);
+            pair = new UserPair(debtor, creditor);
+            delta = amount;
+            pair.setBalance(amount);
+            pair.setCurrency(currencyService.getBaseCurrency().equals(currency) ? null : currency);
         }
+        userPairRepository.save(pair);
+
+        ledgerVersionService.bump(debtor.getUserId(), creditor.getUserId());
+        eventPublisher.publishEvent(new BalanceChangedEvent(this, debtor.getUserId(), creditor.getUserId(),
+                delta, currencyService.currencyOf(pair.getCurrency())));
     }
 
-    @Cacheable(value = "balances", key = "#u1.userId + '_' + #u2.userId")
+    /**
+     * Balance between two users in u1's currency: negative when u1 owes u2.
+     */
+    @Cacheable(value = "balances", key = "#u1.userId + '_' + #u2.userId + '_' + #u1.currency")
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public double getBalance(User u1, User u2) {
         // Check if u1 owes u2 (u1 is user1, u2 is user2)
         Optional<UserPair> pair = userPairRepository.findByUser1AndUser2(u1, u2);
         if (pair.isPresent()) {
-            return -pair.get().getBalance(); // Negative because u1 owes u2
+            return -inCurrencyOf(u1, pair.get()); // Negative because u1 owes u2
         }
         
         // Check if u2 owes u1 (u2 is user1, u1 is user2)
         Optional<UserPair> reversePair = userPairRepository.findByUser1AndUser2(u2, u1);
         if (reversePair.isPresent()) {
-            return reversePair.get().getBalance(); // Positive because u2 owes u1
+            return inCurrencyOf(u1, reversePair.get()); // Positive because u2 owes u1
         }
         
         return 0.0;
     }
 
+    /**
+     * Net balance of the user across all relationships, in the user's currency.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public double getTotalBalance(User user) {
         double total = 0.0;
         List<UserPair> userPairs = userPairRepository.findByUser(user);
 
         for (UserPair pair : userPairs) {
             if (pair.getUser1().equals(user)) {
-                total -= pair.getBalance(); // Money Owed by the user
+                total -= inCurrencyOf(user, pair); // Money Owed by the user
             } else if (pair.getUser2().equals(user)) {
-                total += pair.getBalance(); // Money Owed to the user
+                total += inCurrencyOf(user, pair); // Money Owed to the user
             }
         }
 
         return total;
     }
 
+    private double inCurrencyOf(User viewer, UserPair pair) {
+        return currencyService.convert(pair.getBalance(), pair.getCurrency(), viewer.getCurrency());
+    }
+
     /**
      * Reverses the balance changes caused by an expense.
      * This is used when deleting expenses to undo their impact on user balances.
@@ -149,6 +209,8 @@ public class BalanceSheet {
     public void reverseBalances(Expense expense) {
         User payer = expense.getPayer();
         Map<User, Double> shares = expense.getShares();
+        String currency = currencyService.currencyOf(expense.getCurrency());
+        LocalDate date = expense.getTimestamp().toLocalDate();
 
         for (Map.Entry<User, Double> entry : shares.entrySet()) {
             User participant = entry.getKey();
@@ -157,21 +219,31 @@ public class BalanceSheet {
             // Skip the payer - they don't owe themselves
             if (!participant.equals(payer)) {
                 // Reverse the balance by subtracting the amount
-                reverseUserPairBalance(participant, payer, amount);
+                reverseUserPairBalance(participant, payer, amount, currency, date);
             }
         }
     }
 
     /**
-     * Reverses a UserPair balance by subtracting the specified amount.
+     * Reverses a UserPair balance by subtracting the specified amount, given in the base currency.
      */
     @Transactional
     public void reverseUserPairBalance(User debtor, User creditor, Double amount) {
+        reverseUserPairBalance(debtor, creditor, amount, currencyService.getBaseCurrency(), LocalDate.now());
+    }
+
+    /**
+     * Reverses a UserPair balance by subtracting the specified amount, converted into the
+     * pair's currency with the rate of the given date (the date it was posted with).
+     */
+    @Transactional
+    public void reverseUserPairBalance(User debtor, User creditor, Double amount, String currency, LocalDate date) {
         Optional<UserPair> existingPair = userPairRepository.findByUser1AndUser2(debtor, creditor);
         
         if (existingPair.isPresent()) {
             UserPair pair = existingPair.get();
-            double newBalance = pair.getBalance() - amount;
+            double delta = currencyService.convert(amount, currency, pair.getCurrency(), date);
+            double newBalance = pair.getBalance() - delta;
             
             // If balance becomes zero or very close to zero, delete the UserPair
             if (Math.abs(newBalance) < 0.001) {
@@ -180,6 +252,10 @@ public class BalanceSheet {
                 pair.setBalance(newBalance);
                 userPairRepository.save(pair);
             }
+
+            ledgerVersionService.bump(debtor.getUserId(), creditor.getUserId());
+            eventPublisher.publishEvent(new BalanceChangedEvent(this, debtor.getUserId(), creditor.getUserId(),
+                    -delta, currencyService.currencyOf(pair.getCurrency())));
         }
         // If no existing pair found, this means the balance was already zero
         // No action needed for reversal
@@ -188,15 +264,17 @@ public class BalanceSheet {
     /**
      * Calculates the net balance for each user across all their relationships.
      * Positive balance means the user is owed money, negative means they owe money.
+     * Balances are converted into the base currency.
      */
     private Map<User, Double> calculateNetBalances() {
         Map<User, Double> netBalances = new HashMap<>();
         List<UserPair> allPairs = userPairRepository.findAll();
+        String baseCurrency = currencyService.getBaseCurrency();
         
         for (UserPair pair : allPairs) {
             User debtor = pair.getUser1();
             User creditor = pair.getUser2();
-            Double amount = pair.getBalance();
+            double amount = currencyService.convert(pair.getBalance(), pair.getCurrency(), baseCurrency);
             
             netBalances.put(debtor, netBalances.getOrDefault(debtor, 0.0) - amount);
             netBalances.put(creditor, netBalances.getOrDefault(creditor, 0.0) + amount);
@@ -208,9 +286,28 @@ public class BalanceSheet {
     /**
      * Calculates simplified settlements to minimize the number of transactions needed
      * to settle all balances between users.
+     *
+     * Concurrent callers share a single in-flight computation of the transfers, which only
+     * reads balances. Each caller then saves its own Transactions in its own transaction,
+     * so coalesced callers never share or skip writes.
      */
-    @Transactional
     public List<Transaction> getSimplifiedSettlements() {
+        List<SettlementTransfer> transfers = singleFlightRegistry.<String, List<SettlementTransfer>>get("simplifiedSettlements")
+                .execute("all", () -> transactionTemplate.execute(status -> computeSimplifiedSettlements()));
+        return transactionTemplate.execute(status -> {
+            List<Transaction> transactions = new ArrayList<>(transfers.size());
+            for (SettlementTransfer transfer : transfers) {
+                transactions.add(transactionRepository.save(
+                        new Transaction(transfer.debtor(), transfer.creditor(), transfer.amount())));
+            }
+            return transactions;
+        });
+    }
+
+    private record SettlementTransfer(User debtor, User creditor, double amount) {
+    }
+
+    private List<SettlementTransfer> computeSimplifiedSettlements() {
         Map<User, Double> netBalances = calculateNetBalances();
 
         List<User> debtorsList = new ArrayList<>();
@@ -226,7 +323,7 @@ public class BalanceSheet {
             }
         }
 
-        List<Transaction> transactions = new ArrayList<>();
+        List<SettlementTransfer> transfers = new ArrayList<>();
         int debtorIndex = 0;
         int creditorIndex = 0;
         while (debtorIndex < debtorsList.size() && creditorIndex < creditorsList.size()) {
@@ -238,9 +335,7 @@ public class BalanceSheet {
 
             double transferAmount = Math.min(Math.abs(debtorBalance), creditorBalance);
 
-            Transaction transaction = new Transaction(debtor, creditor, transferAmount);
-            transaction = transactionRepository.save(transaction);
-            transactions.add(transaction);
+            transfers.add(new SettlementTransfer(debtor, creditor, transferAmount));
 
             netBalances.put(debtor, debtorBalance + transferAmount);
             netBalances.put(creditor, creditorBalance - transferAmount);
@@ -252,7 +347,7 @@ public class BalanceSheet {
                 creditorIndex++;
             }
         }
-        return transactions;
+        return transfers;
     }
 
     /**
@@ -314,27 +409,28 @@ public class BalanceSheet {
     }
 
     /**
-     * Calculate net balance for each user using optimized query with aggregation
+     * Calculate net balance for each user using optimized query with aggregation,
+     * in the base currency
      */
     private Map<User, Double> calculateNetBalancesOptimized() {
         Map<User, Double> netBalances = new HashMap<>();
+        String baseCurrency = currencyService.getBaseCurrency();
 
-        // Use single query with aggregation instead of loading all pairs
+        // Use single query with aggregation instead of loading all pairs, one row per user and currency
         List<Object[]> balanceSums = userPairRepository.getNetBalances();
 
         for (Object[] row : balanceSums) {
             User user = (User) row[0];
             Double owedAmount = (Double) row[1];  // What others owe this user
             Double owesAmount = (Double) row[2];  // What this user owes others
+            String currency = (String) row[3];
 
             double netBalance = (owedAmount != null ? owedAmount : 0.0) -
                                (owesAmount != null ? owesAmount : 0.0);
-
-            if (Math.abs(netBalance) > 0.01) { // Ignore tiny amounts
-                netBalances.put(user, netBalance);
-            }
+            netBalances.merge(user, currencyService.convert(netBalance, currency, baseCurrency), Double::sum);
         }
 
+        netBalances.values().removeIf(balance -> Math.abs(balance) <= 0.01); // Ignore tiny amounts
         return netBalances;
     }
 
@@ -352,8 +448,14 @@ public class BalanceSheet {
     /**
      * Calculates the minimum number of transactions needed to settle all balances
      * using a sub-optimal but efficient algorithm.
+     * Concurrent callers share a single in-flight computation.
      */
     public int getSubOptimalMinimumSettlements() {
+        return singleFlightRegistry.<String, Integer>get("minimumSettlements")
+                .execute("all", this::computeSubOptimalMinimumSettlements);
+    }
+
+    private int computeSubOptimalMinimumSettlements() {
         Map<User, Double> netBalances = calculateNetBalances();
 
         List<Double> creditorList = new ArrayList<>();
@@ -0,0 +1,312 @@
+package splitwise.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import splitwise.dto.BalanceDeltaEvent;
+import splitwise.event.BalanceChangedEvent;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BalanceStreamService - Pushes live balance changes to connected clients over SSE
+ *
+ * Balance changes are picked up from BalanceChangedEvent, which BalanceSheet publishes while
+ * applying the ExpenseAddedEvent / ExpenseUpdatedEvent flow and while reversing expenses.
+ * Each change produces one compact BalanceDeltaEvent per involved user, after the transaction commits.
+ *
+ * Connections are cheap: an SseEmitter is an async servlet response and holds no thread while idle.
+ * Sends are done on a small dedicated pool so slow clients never block request threads.
+ * Each user has a send lane that runs one send at a time, in sequence order, so deltas (which are
+ * additive) are never reordered or sent concurrently to the same client.
+ *
+ * Every event carries a global sequence number, prefixed with an epoch generated at startup, as
+ * SSE event id. The last few events per user are kept in a bounded buffer so a reconnecting client
+ * can resume from its Last-Event-ID; the replay is queued on the lane before any live event, so
+ * nothing is interleaved or sent twice. Buffers of users without open streams expire after
+ * balance-stream.idle-expiry-ms.
+ * If the client is too far behind, its id is from before a restart or cannot be read, a single
+ * "resync" event tells it to reload the dashboard.
+ */
+@Service
+public class BalanceStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceStreamService.class);
+
+    @Value("${balance-stream.timeout-ms:1800000}") // 30 minutes
+    private long timeoutMs;
+
+    @Value("${balance-stream.replay-size:100}")
+    private int replaySize;
+
+    @Value("${balance-stream.idle-expiry-ms:600000}") // 10 minutes
+    private long idleExpiryMs;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    // Sequence numbers restart with the application, ids from another run are recognized by their epoch
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Emitters, replay buffer and send lane of each user; mutated only inside streams.compute
+    private final Map<String, UserStream> streams = new ConcurrentHashMap<>();
+
+    private final ExecutorService sendExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "balance-stream-send");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "balance-stream-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BalanceStreamService() {
+        heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeats, 30, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a balance stream for a user.
+     *
+     * @param userId The user to stream balance changes for
+     * @param lastEventId Id of the last event seen by the client, or null for a fresh stream
+     * @return The emitter bound to the HTTP response
+     */
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> removeEmitter(userId, emitter));
+        emitter.onTimeout(() -> removeEmitter(userId, emitter));
+        emitter.onError(error -> removeEmitter(userId, emitter));
+
+        streams.compute(userId, (id, stream) -> {
+            UserStream target = stream != null ? stream : newStream();
+            // Replay is queued before the emitter can receive live events, which are queued after it
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                queueReplay(userId, target, parseSeq(lastEventId.trim()), emitter);
+            }
+            target.emitters.add(emitter);
+            target.lastActivity = System.currentTimeMillis();
+            return target;
+        });
+        return emitter;
+    }
+
+    /**
+     * Event listener for balance changes.
+     * Runs after commit so clients only ever see committed balances.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleBalanceChanged(BalanceChangedEvent event) {
+        long timestamp = System.currentTimeMillis();
+        publish(event.getDebtorId(), event.getCreditorId(), -event.getAmount(), event.getCurrency(), timestamp);
+        publish(event.getCreditorId(), event.getDebtorId(), event.getAmount(), event.getCurrency(), timestamp);
+    }
+
+    /**
+     * Returns the number of open streams, across all users.
+     */
+    public int getConnectionCount() {
+        return streams.values().stream().mapToInt(stream -> stream.emitters.size()).sum();
+    }
+
+    // Sends the change as seen by the user, in the currency the user's balances are shown in
+    private void publish(String userId, String counterpartyId, double amount, String currency, long timestamp) {
+        String viewerCurrency = currencyService.currencyOf(userService.getUser(userId).getCurrency());
+        double delta = currencyService.convert(amount, currency, viewerCurrency);
+
+        streams.compute(userId, (id, stream) -> {
+            UserStream target = stream != null ? stream : newStream();
+            target.lastActivity = timestamp;
+            // Numbered here so the buffer and the lane of a user are always in sequence order
+            BalanceDeltaEvent event = new BalanceDeltaEvent(
+                    sequence.incrementAndGet(), counterpartyId, delta, viewerCurrency, timestamp);
+            target.events.addLast(event);
+            while (target.events.size() > replaySize) {
+                target.lastEvictedSeq = target.events.removeFirst().getSeq();
+            }
+            if (!target.emitters.isEmpty()) {
+                List<SseEmitter> recipients = List.copyOf(target.emitters);
+                target.lane.execute(() -> {
+                    for (SseEmitter emitter : recipients) {
+                        send(userId, emitter, toSseEvent(event));
+                    }
+                });
+            }
+            return target;
+        });
+    }
+
+    // Events before the creation of a buffer are unknown to it, like evicted ones
+    private UserStream newStream() {
+        UserStream stream = new UserStream(sendExecutor);
+        stream.lastEvictedSeq = sequence.get();
+        return stream;
+    }
+
+    // Sequence number of an event id of this run, or -1 if the id is from another run or malformed
+    private long parseSeq(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Called inside streams.compute for the user
+    private void queueReplay(String userId, UserStream stream, long lastEventId, SseEmitter emitter) {
+        // Events newer than the client's cursor were already evicted, so they cannot be replayed
+        if (lastEventId < 0 || stream.lastEvictedSeq > lastEventId) {
+            SseEmitter.SseEventBuilder resync = SseEmitter.event()
+                    .id(eventId(sequence.get()))
+                    .name("resync")
+                    .data("Replay window exceeded, reload balances");
+            stream.lane.execute(() -> send(userId, emitter, resync));
+            return;
+        }
+        List<BalanceDeltaEvent> missed = new ArrayList<>();
+        for (BalanceDeltaEvent delta : stream.events) {
+            if (delta.getSeq() > lastEventId) {
+                missed.add(delta);
+            }
+        }
+        if (!missed.isEmpty()) {
+            stream.lane.execute(() -> {
+                for (BalanceDeltaEvent delta : missed) {
+                    send(userId, emitter, toSseEvent(delta));
+                }
+            });
+        }
+    }
+
+    private void send(String userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping balance stream for user {}: {}", userId, e.getMessage());
+            removeEmitter(userId, emitter);
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSseEvent(BalanceDeltaEvent delta) {
+        return SseEmitter.event()
+                .id(eventId(delta.getSeq()))
+                .name("balance")
+                .data(delta);
+    }
+
+    private String eventId(long seq) {
+        return epoch + "-" + seq;
+    }
+
+    private void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+        for (String userId : streams.keySet()) {
+            streams.computeIfPresent(userId, (id, stream) ->
+                    stream.emitters.isEmpty() && now - stream.lastActivity > idleExpiryMs ? null : stream);
+        }
+        streams.forEach((userId, stream) -> {
+            if (stream.emitters.isEmpty()) {
+                return;
+            }
+            // On the lane, so a heartbeat never overlaps a send to the same client
+            stream.lane.execute(() -> {
+                for (SseEmitter emitter : stream.emitters) {
+                    send(userId, emitter, SseEmitter.event().comment("keep-alive"));
+                }
+            });
+        });
+    }
+
+    private void removeEmitter(String userId, SseEmitter emitter) {
+        streams.computeIfPresent(userId, (id, stream) -> {
+            stream.emitters.remove(emitter);
+            stream.lastActivity = System.currentTimeMillis();
+            return stream;
+        });
+    }
+
+    // Per-user state: open emitters, bounded buffer of recent events for replay, and the send lane
+    private static class UserStream {
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        final ArrayDeque<BalanceDeltaEvent> events = new ArrayDeque<>();
+        final SendLane lane;
+        long lastEvictedSeq;
+        long lastActivity;
+
+        UserStream(ExecutorService sendExecutor) {
+            this.lane = new SendLane(sendExecutor);
+        }
+    }
+
+    // Runs the tasks given to it one at a time, in order, on the shared send pool
+    private static class SendLane {
+        private final ExecutorService executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean draining;
+
+        SendLane(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        synchronized void execute(Runnable task) {
+            tasks.addLast(task);
+            if (!draining) {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.pollFirst();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Balance stream send failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        sendExecutor.shutdown();
+        streams.values().forEach(stream -> stream.emitters.forEach(SseEmitter::complete));
+        streams.clear();
+    }
+}
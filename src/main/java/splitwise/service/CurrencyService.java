@@ -0,0 +1,87 @@
+package splitwise.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Locale;
+
+/**
+ * CurrencyService - Currency codes and conversions
+ *
+ * Amounts are stored in the currency they were entered in: expenses in their own currency,
+ * each UserPair balance in the currency of the pair. A null currency on a stored row means
+ * the base currency (rows from before currencies existed).
+ * Reads convert into the viewer's currency with the rates of the day.
+ */
+@Service
+public class CurrencyService {
+
+    @Autowired
+    private FxRateProvider fxRateProvider;
+
+    public String getBaseCurrency() {
+        return fxRateProvider.getBaseCurrency();
+    }
+
+    /**
+     * Validates and normalizes a currency code given in a request; none means the base currency.
+     *
+     * @throws IllegalArgumentException if the code is not an ISO 4217 currency
+     */
+    public String resolve(String code) {
+        if (code == null || code.isBlank()) {
+            return getBaseCurrency();
+        }
+        String normalized = code.trim().toUpperCase(Locale.ROOT);
+        try {
+            Currency.getInstance(normalized);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown currency: " + code);
+        }
+        return normalized;
+    }
+
+    /**
+     * Same as resolve, and also requires a rate for today, so amounts in the currency can be
+     * converted from then on. Used for expense currencies and users' display currencies.
+     *
+     * @throws IllegalArgumentException if the code is not an ISO 4217 currency or has no exchange rate
+     */
+    public String resolveConvertible(String code) {
+        String resolved = resolve(code);
+        if (!resolved.equals(getBaseCurrency())) {
+            fxRateProvider.getRate(resolved, LocalDate.now());
+        }
+        return resolved;
+    }
+
+    /**
+     * The currency of a stored row.
+     */
+    public String currencyOf(String stored) {
+        return stored != null ? stored : getBaseCurrency();
+    }
+
+    /**
+     * Converts an amount between currencies with the rates in effect on the given date.
+     *
+     * @throws IllegalArgumentException if a rate is missing
+     */
+    public double convert(double amount, String from, String to, LocalDate date) {
+        String source = currencyOf(from);
+        String target = currencyOf(to);
+        if (source.equals(target) || amount == 0) {
+            return amount;
+        }
+        return amount / fxRateProvider.getRate(source, date) * fxRateProvider.getRate(target, date);
+    }
+
+    /**
+     * Converts an amount with today's rates, for reads.
+     */
+    public double convert(double amount, String from, String to) {
+        return convert(amount, from, to, LocalDate.now());
+    }
+}
@@ -1,12 +1,22 @@
 package splitwise.service;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.dto.GroupResponse;
+import splitwise.model.ArchivedBalanceCarry;
 import splitwise.model.Expense;
 import splitwise.model.Group;
 import splitwise.model.User;
 import splitwise.model.UserPair;
+import splitwise.repository.ArchivedBalanceCarryRepository;
 import splitwise.repository.ExpenseRepository;
+import splitwise.repository.GroupRepository;
 import splitwise.repository.UserPairRepository;
 
 import java.util.ArrayList;
@@ -14,6 +24,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * DashboardService - Builds the dashboard views of a user
+ *
+ * Dashboard reads combine expense-derived group balances with UserPair balances.
+ * Each read runs in a single read-only REPEATABLE_READ transaction, which on PostgreSQL
+ * is a snapshot: all queries see the same committed state and share one connection,
+ * and Hibernate skips flushing and dirty-checking snapshots for the loaded entities.
+ *
+ * Expense-derived balances also include archived_balance_carry, what archived expenses
+ * contributed (see ExpenseArchiveService), so archiving never changes a view.
+ *
+ * Amounts are shown in the user's currency (see CurrencyService): pair balances are converted
+ * with today's rates, expense shares are first brought to the base currency with the rate of the
+ * expense date, like the carried balances, and then converted with today's rates.
+ */
 @Service
 public class DashboardService {
 
@@ -32,12 +57,48 @@ public class DashboardService {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private ArchivedBalanceCarryRepository carryRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private SingleFlightRegistry singleFlightRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate snapshotReadTemplate;
+
+    @PostConstruct
+    public void init() {
+        snapshotReadTemplate = new TransactionTemplate(transactionManager);
+        snapshotReadTemplate.setReadOnly(true);
+        snapshotReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
     /**
-     * Get all groups for a user with balance information
+     * Get all groups for a user with balance information.
+     * Concurrent callers for the same user share a single in-flight computation,
+     * so the returned map must be treated as read-only.
+     * The snapshot transaction is opened only by the caller that actually computes.
      */
     public Map<String, Object> getUserGroupsWithBalances(String userId) {
+        return singleFlightRegistry.<String, Map<String, Object>>get("userGroupsWithBalances")
+                .execute(userId, () -> snapshotReadTemplate.execute(status -> computeUserGroupsWithBalances(userId)));
+    }
+
+    private Map<String, Object> computeUserGroupsWithBalances(String userId) {
         User user = userService.getUser(userId);
         List<Group> userGroups = groupService.getGroupsByUserId(userId);
+        Map<String, GroupResponse> groupResponses = new HashMap<>();
+        for (GroupResponse response : groupService.getGroupResponses(userGroups)) {
+            groupResponses.put(response.getGroupId(), response);
+        }
         
         List<Map<String, Object>> groupsWithBalances = new ArrayList<>();
         double totalBalance = 0.0;
@@ -79,9 +140,7 @@ public class DashboardService {
             groupData.put("memberBalances", memberBalances);
             groupData.put("totalBalance", groupBalance);
 
-            group.setUserList(group.getUserList());
-
-            groupData.put("group", group);
+            groupData.put("group", groupResponses.get(group.getGroupId()));
             
             // Add descriptive information for group total balance
             if (groupBalance > 0) {
@@ -105,6 +164,7 @@ public class DashboardService {
         Map<String, Object> result = new HashMap<>();
         result.put("groups", groupsWithBalances);
         result.put("totalBalance", overallBalance);  // Overall balance from UserPair table
+        result.put("currency", currencyService.currencyOf(user.getCurrency()));
         
         // Add descriptive information for overall balance
         if (overallBalance > 0) {
@@ -125,6 +185,7 @@ public class DashboardService {
      * Get all friends with aggregated balance breakdown across groups and non-group expenses
      * Uses UserPair table for accurate balance calculation and properly categorizes expenses
      */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public Map<String, Object> getUserFriendsWithTransactions(String userId) {
         User user = userService.getUser(userId);
         List<UserPair> userPairs = userPairRepository.findByUser(user);
@@ -139,10 +200,10 @@ public class DashboardService {
             
             if (pair.getUser1().equals(user)) {
                 friend = pair.getUser2();
-                totalBalance = -pair.getBalance(); // Negative because user1 owes user2
+                totalBalance = -inUserCurrency(user, pair); // Negative because user1 owes user2
             } else {
                 friend = pair.getUser1();
-                totalBalance = pair.getBalance(); // Positive because user2 owes user1
+                totalBalance = inUserCurrency(user, pair); // Positive because user2 owes user1
             }
             
             // Skip if balance is essentially zero
@@ -178,34 +239,42 @@ public class DashboardService {
                 for (Map.Entry<User, Double> entry : shares.entrySet()) {
                     if (!entry.getKey().equals(user)) {
                         friend = entry.getKey();
-                        balance = entry.getValue(); // Positive: they owe user
+                        balance = inUserCurrency(user, entry.getValue(), expense); // Positive: they owe user
                         break;
                     }
                 }
             } else if (shares.containsKey(user)) {
                 // Current user owes the payer
                 friend = payer;
-                balance = -shares.get(user); // Negative: user owes them
+                balance = -inUserCurrency(user, shares.get(user), expense); // Negative: user owes them
             }
             
             // If we found a friend relationship in this expense
             if (friend != null && Math.abs(balance) >= 0.01) {
-                Map<String, Object> friendData = friendsMap.get(friend.getUserId());
-                if (friendData != null) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Double> friendGroupBalances = (Map<String, Double>) friendData.get("groupBalances");
-                    
-                    if (group != null) {
-                        // This is a group expense - add to group balances
-                        String groupName = group.getName();
-                        friendGroupBalances.put(groupName,
-                            friendGroupBalances.getOrDefault(groupName, 0.0) + balance);
-                    } else {
-                        // This is a non-group expense - add to non-group balance
-                        double currentNonGroupBalance = (double) friendData.get("nonGroupBalance");
-                        friendData.put("nonGroupBalance", currentNonGroupBalance + balance);
-                    }
-                }
+                addFriendBalance(friendsMap, friend.getUserId(), group != null ? group.getName() : null, balance);
+            }
+        }
+        
+        // Add what archived expenses contributed, per group and outside groups
+        List<ArchivedBalanceCarry> carries = carryRepository.findByUserId(userId);
+        if (!carries.isEmpty()) {
+            Map<String, String> groupNames = new HashMap<>();
+            List<String> groupIds = carries.stream()
+                    .map(ArchivedBalanceCarry::getGroupKey)
+                    .filter(key -> !ArchivedBalanceCarry.NO_GROUP.equals(key))
+                    .distinct()
+                    .toList();
+            for (Group group : groupRepository.findAllById(groupIds)) {
+                groupNames.put(group.getGroupId(), group.getName());
+            }
+            
+            for (ArchivedBalanceCarry carry : carries) {
+                boolean userIsDebtor = carry.getDebtorId().equals(userId);
+                String friendId = userIsDebtor ? carry.getCreditorId() : carry.getDebtorId();
+                double balance = inUserCurrency(user, userIsDebtor ? -carry.getAmount() : carry.getAmount());
+                String groupName = ArchivedBalanceCarry.NO_GROUP.equals(carry.getGroupKey())
+                        ? null : groupNames.getOrDefault(carry.getGroupKey(), carry.getGroupKey());
+                addFriendBalance(friendsMap, friendId, groupName, balance);
             }
         }
         
@@ -279,6 +348,7 @@ public class DashboardService {
         Map<String, Object> result = new HashMap<>();
         result.put("users", friendsList);
         result.put("totalBalance", overallBalance);
+        result.put("currency", currencyService.currencyOf(user.getCurrency()));
         
         if (overallBalance > 0) {
             result.put("balanceType", "gets_back");
@@ -294,9 +364,31 @@ public class DashboardService {
         return result;
     }
     
+    /**
+     * Adds a balance with a friend to its group (by name) or, when groupName is null, to its non-group balance.
+     */
+    private void addFriendBalance(Map<String, Map<String, Object>> friendsMap, String friendId, String groupName, double balance) {
+        Map<String, Object> friendData = friendsMap.get(friendId);
+        if (friendData == null) {
+            return;
+        }
+        
+        if (groupName != null) {
+            // This is a group expense - add to group balances
+            @SuppressWarnings("unchecked")
+            Map<String, Double> friendGroupBalances = (Map<String, Double>) friendData.get("groupBalances");
+            friendGroupBalances.put(groupName, friendGroupBalances.getOrDefault(groupName, 0.0) + balance);
+        } else {
+            // This is a non-group expense - add to non-group balance
+            double currentNonGroupBalance = (double) friendData.get("nonGroupBalance");
+            friendData.put("nonGroupBalance", currentNonGroupBalance + balance);
+        }
+    }
+    
     /**
      * Get all users with whom the current user has balances (legacy method)
      */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public Map<String, Object> getUserBalances(String userId) {
         User user = userService.getUser(userId);
         List<UserPair> userPairs = userPairRepository.findByUser(user);
@@ -312,10 +404,10 @@ public class DashboardService {
             
             if (pair.getUser1().equals(user)) {
                 otherUser = pair.getUser2();
-                balance = -pair.getBalance(); // Negative because user1 owes user2
+                balance = -inUserCurrency(user, pair); // Negative because user1 owes user2
             } else {
                 otherUser = pair.getUser1();
-                balance = pair.getBalance(); // Positive because user2 owes user1
+                balance = inUserCurrency(user, pair); // Positive because user2 owes user1
             }
             
             userData.put("user", otherUser);
@@ -340,6 +432,7 @@ public class DashboardService {
         Map<String, Object> result = new HashMap<>();
         result.put("users", userBalances);
         result.put("totalBalance", totalBalance);
+        result.put("currency", currencyService.currencyOf(user.getCurrency()));
         
         // Add descriptive information for overall balance
         if (totalBalance > 0) {
@@ -357,8 +450,10 @@ public class DashboardService {
     }
     
     /**
-     * Get complete dashboard data for a user
+     * Get complete dashboard data for a user.
+     * Group balances and user balances are read from the same snapshot, so they always agree.
      */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public Map<String, Object> getDashboardData(String userId) {
         Map<String, Object> dashboard = new HashMap<>();
         
@@ -366,8 +461,8 @@ public class DashboardService {
         User user = userService.getUser(userId);
         dashboard.put("user", user);
         
-        // Get group balances
-        Map<String, Object> groupData = getUserGroupsWithBalances(userId);
+        // Get group balances (not coalesced, it must come from this transaction's snapshot)
+        Map<String, Object> groupData = computeUserGroupsWithBalances(userId);
         dashboard.put("groups", groupData.get("groups"));
         
         // Get user balances
@@ -379,6 +474,7 @@ public class DashboardService {
         double userBalance = (double) userData.get("totalBalance");
         double overallBalance = groupBalance + userBalance;
         dashboard.put("totalBalance", overallBalance);
+        dashboard.put("currency", currencyService.currencyOf(user.getCurrency()));
         
         // Add descriptive information for overall balance
         if (overallBalance > 0) {
@@ -418,7 +514,7 @@ public class DashboardService {
             if (payer.equals(user)) {
                 for (Map.Entry<User, Double> entry : shares.entrySet()) {
                     User participant = entry.getKey();
-                    Double amount = entry.getValue();
+                    double amount = inUserCurrency(user, entry.getValue(), expense);
                     
                     // Skip the payer themselves
                     if (!participant.equals(user)) {
@@ -428,11 +524,44 @@ public class DashboardService {
             }
             // If current user is a participant (not payer), they owe the payer
             else if (shares.containsKey(user)) {
-                Double amountOwed = shares.get(user);
+                double amountOwed = inUserCurrency(user, shares.get(user), expense);
                 balances.put(payer, balances.getOrDefault(payer, 0.0) - amountOwed);
             }
         }
         
+        // Add what archived expenses of this group contributed
+        List<ArchivedBalanceCarry> carries = carryRepository.findByGroupAndUserId(group.getGroupId(), user.getUserId());
+        if (!carries.isEmpty()) {
+            List<String> otherIds = carries.stream()
+                    .map(carry -> carry.getDebtorId().equals(user.getUserId()) ? carry.getCreditorId() : carry.getDebtorId())
+                    .toList();
+            Map<String, User> others = userService.findUsers(otherIds);
+            for (ArchivedBalanceCarry carry : carries) {
+                boolean userIsDebtor = carry.getDebtorId().equals(user.getUserId());
+                User other = others.get(userIsDebtor ? carry.getCreditorId() : carry.getDebtorId());
+                if (other != null) {
+                    double amount = inUserCurrency(user, userIsDebtor ? -carry.getAmount() : carry.getAmount());
+                    balances.put(other, balances.getOrDefault(other, 0.0) + amount);
+                }
+            }
+        }
+        
         return balances;
     }
-}
\ No newline at end of file
+
+    private double inUserCurrency(User user, UserPair pair) {
+        return currencyService.convert(pair.getBalance(), pair.getCurrency(), user.getCurrency());
+    }
+
+    // Expense amounts go through the base currency at the rate of the expense date, like carried balances
+    private double inUserCurrency(User user, double amount, Expense expense) {
+        double base = currencyService.convert(amount, expense.getCurrency(), currencyService.getBaseCurrency(),
+                expense.getTimestamp().toLocalDate());
+        return inUserCurrency(user, base);
+    }
+
+    // Amounts in the base currency
+    private double inUserCurrency(User user, double amount) {
+        return currencyService.convert(amount, currencyService.getBaseCurrency(), user.getCurrency());
+    }
+}
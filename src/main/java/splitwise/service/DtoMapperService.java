@@ -4,9 +4,12 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import splitwise.dto.ExpenseResponse;
+import splitwise.dto.GroupMemberPageResponse;
+import splitwise.dto.GroupResponse;
 import splitwise.dto.UserResponse;
 import splitwise.dto.UserSummaryDTO;
 import splitwise.model.Expense;
+import splitwise.model.Group;
 import splitwise.model.User;
 
 import java.util.stream.Collectors;
@@ -17,6 +20,9 @@ public class DtoMapperService {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Autowired
+    private CurrencyService currencyService;
+
     public UserResponse toUserResponse(User user) {
         if (user == null) {
             return null;
@@ -26,6 +32,7 @@ public class DtoMapperService {
         dto.setName(user.getName());
         dto.setEmail(user.getEmail());
         dto.setMobile(user.getMobile());
+        dto.setCurrency(currencyService.currencyOf(user.getCurrency()));
         dto.setRole(user.getRole());
         return dto;
     }
@@ -41,6 +48,23 @@ public class DtoMapperService {
         return dto;
     }
 
+    /**
+     * @param members First page of members, or null to return the count only
+     */
+    public GroupResponse toGroupResponse(Group group, long memberCount, GroupMemberPageResponse members) {
+        if (group == null) {
+            return null;
+        }
+        GroupResponse response = new GroupResponse();
+        response.setGroupId(group.getGroupId());
+        response.setName(group.getName());
+        response.setDescription(group.getDescription());
+        response.setCreatedBy(toUserSummaryDTO(group.getCreatedBy()));
+        response.setMemberCount(memberCount);
+        response.setMembers(members);
+        return response;
+    }
+
     public ExpenseResponse toExpenseResponse(Expense expense) {
         if (expense == null) {
             return null;
@@ -51,6 +75,7 @@ public class DtoMapperService {
         response.setTitle(expense.getTitle());
         response.setDescription(expense.getDescription());
         response.setAmount(expense.getAmount());
+        response.setCurrency(currencyService.currencyOf(expense.getCurrency()));
         response.setSplitType(expense.getSplitType());
         response.setTimestamp(expense.getTimestamp());
         response.setGroupId(expense.getGroup() != null ? expense.getGroup().getGroupId() : null);
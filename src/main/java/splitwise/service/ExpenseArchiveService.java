@@ -0,0 +1,233 @@
+package splitwise.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.model.ArchivedBalanceCarry;
+import splitwise.model.Expense;
+import splitwise.model.User;
+import splitwise.repository.ArchivedBalanceCarryRepository;
+import splitwise.repository.ExpenseRepository;
+import splitwise.repository.UserPairRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ExpenseArchiveService - Moves settled history out of the hot expenses table
+ *
+ * Expenses older than the horizon (expense-archive.horizon-months) are moved to
+ * expenses_archive / expense_participants_archive, bucketed by month (archive_month = yyyyMM),
+ * so the hot table and its indexes only hold recent or still-open history.
+ *
+ * An expense is archived only when every debt it created is settled: the net balance between
+ * each participant and the payer is zero. Balances (user_pairs) are never touched; what the
+ * archived expenses contributed to per-group and non-group views is added to
+ * archived_balance_carry so those views stay exact. Carried amounts are kept in the base currency,
+ * converted with the rate of each expense's date.
+ *
+ * Archived expenses are dropped from the search index.
+ *
+ * The job walks old expenses in (timestamp, id) order, one transaction per chunk,
+ * so it can be interrupted and resumed at any time.
+ */
+@Service
+public class ExpenseArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseArchiveService.class);
+
+    private static final double SETTLED_TOLERANCE = 0.01;
+
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Value("${expense-archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${expense-archive.horizon-months:12}")
+    private int horizonMonths;
+
+    @Value("${expense-archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserPairRepository userPairRepository;
+
+    @Autowired
+    private ArchivedBalanceCarryRepository carryRepository;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ExpenseSearchService expenseSearchService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${expense-archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archiveSettledExpenses();
+        }
+    }
+
+    /**
+     * Archives every settled expense older than the horizon.
+     *
+     * @return The cutoff used and the number of expenses scanned and archived
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public Map<String, Object> archiveSettledExpenses() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Expense archival is already running");
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMonths(horizonMonths);
+            ChunkResult chunk = new ChunkResult(START, "", 0, List.of());
+            int scanned = 0;
+            int archived = 0;
+            do {
+                LocalDateTime afterTimestamp = chunk.lastTimestamp;
+                String afterId = chunk.lastId;
+                chunk = transactionTemplate.execute(status -> archiveChunk(cutoff, afterTimestamp, afterId));
+                expenseSearchService.remove(chunk.archivedIds);
+                scanned += chunk.scanned;
+                archived += chunk.archivedIds.size();
+            } while (chunk.scanned == chunkSize);
+
+            logger.info("Expense archival done: {} expenses older than {} scanned, {} archived", scanned, cutoff, archived);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("cutoff", cutoff.toString());
+            result.put("scanned", scanned);
+            result.put("archived", archived);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ChunkResult archiveChunk(LocalDateTime cutoff, LocalDateTime afterTimestamp, String afterId) {
+        List<Expense> candidates = expenseRepository.findOlderThan(cutoff, afterTimestamp, afterId, Limit.of(chunkSize));
+        if (candidates.isEmpty()) {
+            return new ChunkResult(afterTimestamp, afterId, 0, List.of());
+        }
+        Expense last = candidates.get(candidates.size() - 1);
+
+        Map<String, Double> netBalances = loadNetBalances(candidates);
+        List<Expense> settled = new ArrayList<>();
+        for (Expense expense : candidates) {
+            if (isSettled(expense, netBalances)) {
+                settled.add(expense);
+            }
+        }
+
+        List<String> settledIds = settled.stream().map(Expense::getId).toList();
+        if (!settled.isEmpty()) {
+            carryForward(settled);
+            moveToArchive(settledIds);
+        }
+        return new ChunkResult(last.getTimestamp(), last.getId(), candidates.size(), settledIds);
+    }
+
+    // Net balance per ordered pair "a|b": what a owes b, minus what b owes a, in the base currency
+    private Map<String, Double> loadNetBalances(List<Expense> expenses) {
+        Set<String> userIds = new HashSet<>();
+        for (Expense expense : expenses) {
+            userIds.add(expense.getPayer().getUserId());
+        }
+
+        Map<String, Double> net = new HashMap<>();
+        for (Object[] row : userPairRepository.findBalancesInvolving(userIds)) {
+            String debtor = (String) row[0];
+            String creditor = (String) row[1];
+            double balance = row[2] == null ? 0.0 : ((Number) row[2]).doubleValue();
+            balance = currencyService.convert(balance, (String) row[3], currencyService.getBaseCurrency());
+            net.merge(debtor + "|" + creditor, balance, Double::sum);
+            net.merge(creditor + "|" + debtor, -balance, Double::sum);
+        }
+        return net;
+    }
+
+    private boolean isSettled(Expense expense, Map<String, Double> netBalances) {
+        String payerId = expense.getPayer().getUserId();
+        for (User participant : expense.getShares().keySet()) {
+            if (participant.getUserId().equals(payerId)) {
+                continue;
+            }
+            double owed = netBalances.getOrDefault(participant.getUserId() + "|" + payerId, 0.0);
+            if (Math.abs(owed) >= SETTLED_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void carryForward(List<Expense> expenses) {
+        Map<List<String>, Double> deltas = new LinkedHashMap<>();
+        for (Expense expense : expenses) {
+            String groupKey = expense.getGroup() != null ? expense.getGroup().getGroupId() : ArchivedBalanceCarry.NO_GROUP;
+            String payerId = expense.getPayer().getUserId();
+            LocalDate date = expense.getTimestamp().toLocalDate();
+            for (Map.Entry<User, Double> share : expense.getShares().entrySet()) {
+                if (!share.getKey().getUserId().equals(payerId)) {
+                    double amount = currencyService.convert(share.getValue(), expense.getCurrency(), currencyService.getBaseCurrency(), date);
+                    deltas.merge(List.of(groupKey, share.getKey().getUserId(), payerId), amount, Double::sum);
+                }
+            }
+        }
+
+        List<ArchivedBalanceCarry> carries = new ArrayList<>(deltas.size());
+        deltas.forEach((key, amount) -> {
+            ArchivedBalanceCarry carry = carryRepository
+                    .findByGroupKeyAndDebtorIdAndCreditorId(key.get(0), key.get(1), key.get(2))
+                    .orElseGet(() -> new ArchivedBalanceCarry(key.get(0), key.get(1), key.get(2)));
+            carry.setAmount(carry.getAmount() + amount);
+            carries.add(carry);
+        });
+        carryRepository.saveAll(carries);
+    }
+
+    private void moveToArchive(List<String> expenseIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", expenseIds)
+                .addValue("archivedAt", LocalDateTime.now());
+
+        namedJdbcTemplate.update(
+                "INSERT INTO expenses_archive (id, title, description, split_type, amount, currency, payer_id, shares_packed, " +
+                "split_details, timestamp, group_id, is_settle_up, archive_month, archived_at) " +
+                "SELECT id, title, description, split_type, amount, currency, payer_id, shares_packed, " +
+                "split_details, timestamp, group_id, is_settle_up, " +
+                "CAST(EXTRACT(YEAR FROM timestamp) * 100 + EXTRACT(MONTH FROM timestamp) AS INTEGER), :archivedAt " +
+                "FROM expenses WHERE id IN (:ids)", params);
+        namedJdbcTemplate.update(
+                "INSERT INTO expense_participants_archive (expense_id, user_id) " +
+                "SELECT expense_id, user_id FROM expense_participants WHERE expense_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM expense_participants WHERE expense_id IN (:ids)", params);
+        namedJdbcTemplate.update("DELETE FROM expenses WHERE id IN (:ids)", params);
+    }
+
+    private record ChunkResult(LocalDateTime lastTimestamp, String lastId, int scanned, List<String> archivedIds) {
+    }
+}
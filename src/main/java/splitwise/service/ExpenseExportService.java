@@ -0,0 +1,249 @@
+package splitwise.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.repository.ArchivedExpenseRepository;
+import splitwise.repository.ExpenseRepository;
+import splitwise.util.SharesCodec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * ExpenseExportService - Streams the full expense history of a user or a group
+ *
+ * Rows are read through a forward-only database cursor (scalar projection, one row per expense
+ * with its packed shares, no entities kept in the persistence context) and written straight to
+ * the response as they arrive, so memory stays flat and the first bytes are sent immediately
+ * whatever the size of the history.
+ * The history includes archived expenses: the archive and hot cursors are merged by
+ * (timestamp, id) as they are read.
+ *
+ * Supported formats:
+ * - ndjson: one JSON object per expense, with its shares as a userId -> amount object
+ * - csv: one ledger line per share (expense columns repeated on each line)
+ */
+@Service
+public class ExpenseExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseExportService.class);
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int FLUSH_EVERY = 100;
+
+    // Ledger rows by timestamp (column 5), then id (column 0)
+    private static final Comparator<Object[]> ROW_ORDER = Comparator
+            .comparing((Object[] row) -> (LocalDateTime) row[5])
+            .thenComparing(row -> (String) row[0]);
+
+    private static final String CSV_HEADER =
+            "expense_id,timestamp,title,description,amount,currency,split_type,payer_id,group_id,is_settle_up,participant_id,share";
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Validates and normalizes an export format, defaulting to ndjson.
+     */
+    public String resolveFormat(String format) {
+        if (format == null || format.isBlank()) {
+            return FORMAT_NDJSON;
+        }
+        String normalized = format.trim().toLowerCase();
+        if (!FORMAT_NDJSON.equals(normalized) && !FORMAT_CSV.equals(normalized)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format + ". Use ndjson or csv");
+        }
+        return normalized;
+    }
+
+    /**
+     * Writes every expense the user paid for or takes part in, oldest first.
+     */
+    public void exportUserExpenses(String userId, String format, OutputStream out) {
+        export(() -> archivedExpenseRepository.streamLedgerByUser(userId),
+                () -> expenseRepository.streamLedgerByUser(userId), format, out);
+        logger.info("Exported expenses of user {} as {}", userId, format);
+    }
+
+    /**
+     * Writes every expense of the group, oldest first.
+     */
+    public void exportGroupExpenses(String groupId, String format, OutputStream out) {
+        export(() -> archivedExpenseRepository.streamLedgerByGroup(groupId),
+                () -> expenseRepository.streamLedgerByGroup(groupId), format, out);
+        logger.info("Exported expenses of group {} as {}", groupId, format);
+    }
+
+    private void export(Supplier<Stream<Object[]>> archivedRows, Supplier<Stream<Object[]>> hotRows,
+                        String format, OutputStream out) {
+        readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> archived = archivedRows.get(); Stream<Object[]> hot = hotRows.get()) {
+                Iterator<Object[]> rows = merge(archived.iterator(), hot.iterator());
+                if (FORMAT_CSV.equals(format)) {
+                    writeCsv(rows, out);
+                } else {
+                    writeNdjson(rows, out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Export interrupted", e);
+            }
+        });
+    }
+
+    /**
+     * Merges two row iterators that are each ordered by (timestamp, id).
+     */
+    private Iterator<Object[]> merge(Iterator<Object[]> first, Iterator<Object[]> second) {
+        return new Iterator<>() {
+            private Object[] nextFirst = first.hasNext() ? first.next() : null;
+            private Object[] nextSecond = second.hasNext() ? second.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextFirst != null || nextSecond != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row;
+                if (nextSecond == null || (nextFirst != null && ROW_ORDER.compare(nextFirst, nextSecond) <= 0)) {
+                    row = nextFirst;
+                    nextFirst = first.hasNext() ? first.next() : null;
+                } else {
+                    row = nextSecond;
+                    nextSecond = second.hasNext() ? second.next() : null;
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Writes one JSON object per expense, with its shares as a userId -> amount object.
+     */
+    private void writeNdjson(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        int written = 0;
+
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            generator.writeStartObject();
+            generator.writeStringField("id", (String) row[0]);
+            generator.writeStringField("title", (String) row[1]);
+            generator.writeStringField("description", (String) row[2]);
+            generator.writeNumberField("amount", ((Number) row[3]).doubleValue());
+            generator.writeStringField("currency", currency(row));
+            generator.writeStringField("splitType", Objects.toString(row[4], null));
+            generator.writeStringField("timestamp", Objects.toString(row[5], null));
+            generator.writeStringField("payerId", (String) row[6]);
+            generator.writeStringField("groupId", (String) row[7]);
+            generator.writeObjectField("isSettleUp", row[8]);
+            generator.writeObjectFieldStart("shares");
+            for (Map.Entry<String, Double> share : shares(row).entrySet()) {
+                generator.writeNumberField(share.getKey(), share.getValue());
+            }
+            generator.writeEndObject(); // shares
+            generator.writeEndObject(); // expense
+            generator.writeRaw('\n');
+
+            if (++written == 1 || written % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+    }
+
+    /**
+     * Writes one ledger line per share, repeating the expense columns.
+     */
+    private void writeCsv(Iterator<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        writer.flush();
+
+        int written = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            String expenseColumns = csv(row[0]) + ',' + csv(row[5]) + ',' + csv(row[1]) + ',' + csv(row[2]) + ','
+                    + csv(row[3]) + ',' + csv(currency(row)) + ',' + csv(row[4]) + ',' + csv(row[6]) + ',' + csv(row[7]) + ',' + csv(row[8]);
+            for (Map.Entry<String, Double> share : shares(row).entrySet()) {
+                writer.write(expenseColumns);
+                writer.write(',');
+                writer.write(csv(share.getKey()));
+                writer.write(',');
+                writer.write(csv(share.getValue()));
+                writer.write('\n');
+            }
+
+            if (++written % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private Map<String, Double> shares(Object[] row) {
+        return row[9] == null ? Map.of() : SharesCodec.decode((byte[]) row[9]);
+    }
+
+    private String currency(Object[] row) {
+        return currencyService.currencyOf((String) row[10]);
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
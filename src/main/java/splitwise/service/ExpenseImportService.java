@@ -0,0 +1,392 @@
+package splitwise.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import splitwise.dto.ExpenseImportResponse;
+import splitwise.dto.ExpenseImportRow;
+import splitwise.event.ExpensesImportedEvent;
+import splitwise.model.Expense;
+import splitwise.model.Group;
+import splitwise.model.User;
+import splitwise.repository.GroupRepository;
+import splitwise.repository.UserPairRepository;
+import splitwise.util.CsvParser;
+import splitwise.util.SplitTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * ExpenseImportService - Bulk import of expenses (JSON array or CSV)
+ *
+ * Compared to calling addExpense once per expense, an import:
+ * 1. Validates every row up front and reports errors per row (valid rows are still imported)
+ * 2. Resolves all referenced users (cache-aware) and groups with one query each
+ * 3. Inserts expenses, participants and shares with Hibernate JDBC batching,
+ *    flushing and clearing the persistence context after each batch
+ * 4. Converts each share into its pair's currency with the rate of the expense date, aggregates
+ *    the ledger deltas per (debtor, creditor) pair and applies each aggregate once
+ *
+ * No ExpenseAddedEvent is published per expense; a single ExpensesImportedEvent is published instead.
+ *
+ * CSV columns (header row required, order free):
+ * title, description, amount, currency, payerId, participantIds (separated by ';'), splitType,
+ * splitDetails (JSON object), groupId, isSettleUp, timestamp (ISO date or date-time)
+ */
+@Service
+public class ExpenseImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseImportService.class);
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Value("${expense-import.max-rows:10000}")
+    private int maxRows;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private BalanceSheet balanceSheet;
+
+    @Autowired
+    private UserPairRepository userPairRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private GroupMembershipService groupMembershipService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    /**
+     * Imports a batch of expenses submitted as JSON.
+     *
+     * @param rows The expenses to import
+     * @return The import report with per-row errors
+     */
+    @Transactional
+    public ExpenseImportResponse importExpenses(List<ExpenseImportRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("Import batch cannot be empty");
+        }
+        return doImport(rows, new HashMap<>());
+    }
+
+    /**
+     * Imports a batch of expenses submitted as CSV.
+     *
+     * @param csv The CSV content, header row first
+     * @return The import report with per-row errors (row numbers exclude the header)
+     */
+    @Transactional
+    public ExpenseImportResponse importCsv(String csv) {
+        List<List<String>> records = CsvParser.parse(csv == null ? "" : csv);
+        if (records.size() < 2) {
+            throw new IllegalArgumentException("CSV must contain a header row and at least one expense");
+        }
+
+        List<String> header = records.get(0).stream()
+                .map(column -> column.trim().toLowerCase())
+                .collect(Collectors.toList());
+        if (!header.contains("title") || !header.contains("amount") || !header.contains("payerid")) {
+            throw new IllegalArgumentException("CSV header must contain at least title, amount and payerId");
+        }
+
+        List<ExpenseImportRow> rows = new ArrayList<>(records.size() - 1);
+        Map<Integer, String> parseErrors = new HashMap<>();
+        for (int i = 1; i < records.size(); i++) {
+            try {
+                rows.add(parseCsvRow(header, records.get(i)));
+            } catch (RuntimeException e) {
+                rows.add(null);
+                parseErrors.put(i - 1, e.getMessage());
+            }
+        }
+        return doImport(rows, parseErrors);
+    }
+
+    private ExpenseImportResponse doImport(List<ExpenseImportRow> rows, Map<Integer, String> rowErrors) {
+        if (rows.size() > maxRows) {
+            throw new IllegalArgumentException("Import batch cannot exceed " + maxRows + " expenses");
+        }
+
+        String currentUserId = expenseService.getCurrentUserId();
+
+        // Resolve every referenced user and group once for the whole batch
+        Set<String> userIds = new HashSet<>();
+        Set<String> groupIds = new HashSet<>();
+        Set<String> payerIds = new HashSet<>();
+        userIds.add(currentUserId);
+        for (ExpenseImportRow row : rows) {
+            if (row != null) {
+                if (row.getPayerId() != null) {
+                    payerIds.add(row.getPayerId());
+                }
+                userIds.addAll(expenseService.collectReferencedUserIds(
+                        row.getPayerId(), row.getParticipantIds(), row.getSplitDetails()));
+                if (row.getGroupId() != null && !row.getGroupId().isBlank()) {
+                    groupIds.add(row.getGroupId());
+                }
+            }
+        }
+        // Unknown users are reported on the rows that reference them
+        Map<String, User> users = userService.findUsers(userIds);
+        Map<String, Group> groups = groupRepository.findAllById(groupIds).stream()
+                .collect(Collectors.toMap(Group::getGroupId, group -> group));
+
+        // Validate and compute the shares of every row
+        LocalDateTime importTime = LocalDateTime.now();
+        List<Expense> expenses = new ArrayList<>();
+        Map<LedgerKey, Double> ledgerDeltas = new LinkedHashMap<>();
+
+        // Currency of every pair a payer is in; a pair created by this import takes the currency of its first share
+        Map<LedgerKey, String> pairCurrencies = new HashMap<>();
+        if (!payerIds.isEmpty()) {
+            for (Object[] pair : userPairRepository.findBalancesInvolving(payerIds)) {
+                pairCurrencies.put(new LedgerKey((String) pair[0], (String) pair[1]), currencyService.currencyOf((String) pair[3]));
+            }
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            ExpenseImportRow row = rows.get(i);
+            if (row == null) {
+                continue;
+            }
+            try {
+                Expense expense = buildExpense(row, currentUserId, users, groups, importTime);
+                accumulate(ledgerDeltas, pairCurrencies, expense);
+                expenses.add(expense);
+            } catch (RuntimeException e) {
+                rowErrors.put(i, e.getMessage());
+            }
+        }
+
+        // Insert in JDBC batches, keeping the persistence context small
+        for (int i = 0; i < expenses.size(); i++) {
+            entityManager.persist(expenses.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Apply each pair's aggregated delta once, already in the pair's currency
+        LocalDate importDate = importTime.toLocalDate();
+        for (Map.Entry<LedgerKey, Double> delta : ledgerDeltas.entrySet()) {
+            LedgerKey key = delta.getKey();
+            balanceSheet.updateUserPairBalance(users.get(key.debtorId()), users.get(key.creditorId()),
+                    delta.getValue(), pairCurrencies.get(key), importDate);
+        }
+
+        if (!expenses.isEmpty()) {
+            eventPublisher.publishEvent(new ExpensesImportedEvent(this, expenses));
+        }
+
+        ExpenseImportResponse response = new ExpenseImportResponse();
+        response.setTotalRows(rows.size());
+        response.setImported(expenses.size());
+        response.setFailed(rowErrors.size());
+        rowErrors.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(error -> response.getErrors().add(
+                        new ExpenseImportResponse.RowError(error.getKey() + 1, error.getValue())));
+
+        logger.info("Imported {} of {} expenses ({} ledger pairs updated)",
+                expenses.size(), rows.size(), ledgerDeltas.size());
+        return response;
+    }
+
+    private Expense buildExpense(ExpenseImportRow row, String currentUserId, Map<String, User> users,
+                                 Map<String, Group> groups, LocalDateTime importTime) {
+        Set<ConstraintViolation<ExpenseImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        User payer = requireUser(users, row.getPayerId());
+        List<User> participants = new ArrayList<>();
+        for (String participantId : new LinkedHashSet<>(row.getParticipantIds())) {
+            participants.add(requireUser(users, participantId));
+        }
+
+        Group group = null;
+        if (row.getGroupId() != null && !row.getGroupId().isBlank()) {
+            group = groups.get(row.getGroupId());
+            if (group == null) {
+                throw new IllegalArgumentException("Group with ID " + row.getGroupId() + " not found");
+            }
+            GroupMembershipService.Membership members = groupMembershipService.getMembership(group.getGroupId());
+            if (!members.contains(currentUserId)) {
+                throw new IllegalArgumentException("You must be a member of the group to add expenses");
+            }
+            if (!members.contains(payer.getUserId())) {
+                throw new IllegalArgumentException("Payer must be a member of the group");
+            }
+            for (User participant : participants) {
+                if (!members.contains(participant.getUserId())) {
+                    throw new IllegalArgumentException("User " + participant.getUserId() + " is not a member of the group");
+                }
+            }
+        } else if (!currentUserId.equals(row.getPayerId()) && !row.getParticipantIds().contains(currentUserId)) {
+            throw new IllegalArgumentException(
+                    "Unauthorized: You can only create expenses where you are either the payer or a participant");
+        }
+
+        String currency = currencyService.resolve(row.getCurrency());
+        LocalDateTime timestamp = row.getTimestamp() != null ? row.getTimestamp() : importTime;
+        // Fails the row rather than the batch when no rate is known for the expense date
+        currencyService.convert(1.0, currency, currencyService.getBaseCurrency(), timestamp.toLocalDate());
+
+        SplitTypes splitType = row.getSplitType();
+        expenseService.validateSplitDetails(splitType, row.getSplitDetails(), row.getParticipantIds());
+        Map<User, Double> shares = expenseService.calculateShares(splitType, group, row.getAmount(), participants, row.getSplitDetails(), currency);
+
+        Expense expense = new Expense(UUID.randomUUID().toString(), row.getTitle(), splitType, row.getAmount(),
+                payer, participants, shares, row.getSplitDetails(), timestamp, row.getIsSettleUp());
+        expense.setDescription(row.getDescription());
+        expense.setCurrency(currency);
+        expense.setGroup(group);
+        return expense;
+    }
+
+    // Same direction as BalanceSheet.updateBalances: each participant owes the payer their share.
+    // Shares are converted into the pair's currency with the rate of the expense date, as updateBalances does,
+    // so each pair sums to a single delta. All shares are converted before any is added, so a missing
+    // rate fails the row without touching the aggregates.
+    private void accumulate(Map<LedgerKey, Double> ledgerDeltas, Map<LedgerKey, String> pairCurrencies, Expense expense) {
+        User payer = expense.getPayer();
+        String currency = currencyService.currencyOf(expense.getCurrency());
+        LocalDate date = expense.getTimestamp().toLocalDate();
+
+        Map<LedgerKey, Double> converted = new LinkedHashMap<>();
+        for (Map.Entry<User, Double> entry : expense.getShares().entrySet()) {
+            if (!entry.getKey().equals(payer)) {
+                LedgerKey key = new LedgerKey(entry.getKey().getUserId(), payer.getUserId());
+                String pairCurrency = pairCurrencies.getOrDefault(key, currency);
+                converted.merge(key, currencyService.convert(entry.getValue(), currency, pairCurrency, date), Double::sum);
+            }
+        }
+        for (Map.Entry<LedgerKey, Double> delta : converted.entrySet()) {
+            pairCurrencies.putIfAbsent(delta.getKey(), currency);
+            ledgerDeltas.merge(delta.getKey(), delta.getValue(), Double::sum);
+        }
+    }
+
+    private record LedgerKey(String debtorId, String creditorId) {
+    }
+
+    private User requireUser(Map<String, User> users, String userId) {
+        User user = users.get(userId);
+        if (user == null) {
+            throw new IllegalArgumentException("User with ID " + userId + " not found");
+        }
+        return user;
+    }
+
+    private ExpenseImportRow parseCsvRow(List<String> header, List<String> values) {
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("Expected " + header.size() + " columns but found " + values.size());
+        }
+
+        ExpenseImportRow row = new ExpenseImportRow();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (header.get(i)) {
+                case "title" -> row.setTitle(value);
+                case "description" -> row.setDescription(value);
+                case "amount" -> row.setAmount(parseAmount(value));
+                case "currency" -> row.setCurrency(value);
+                case "payerid" -> row.setPayerId(value);
+                case "participantids" -> row.setParticipantIds(Arrays.stream(value.split(";"))
+                        .map(String::trim)
+                        .filter(id -> !id.isEmpty())
+                        .collect(Collectors.toList()));
+                case "splittype" -> row.setSplitType(parseSplitType(value));
+                case "splitdetails" -> row.setSplitDetails(parseSplitDetails(value));
+                case "groupid" -> row.setGroupId(value);
+                case "issettleup" -> row.setIsSettleUp(Boolean.parseBoolean(value));
+                case "timestamp" -> row.setTimestamp(parseTimestamp(value));
+                default -> {
+                    // Unknown columns are ignored
+                }
+            }
+        }
+        if (row.getSplitType() == null) {
+            row.setSplitType(SplitTypes.EQUAL_SPLIT);
+        }
+        return row;
+    }
+
+    private Double parseAmount(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + value);
+        }
+    }
+
+    private SplitTypes parseSplitType(String value) {
+        try {
+            return SplitTypes.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown split type: " + value);
+        }
+    }
+
+    private Map<String, Object> parseSplitDetails(String value) {
+        try {
+            return objectMapper.readValue(value, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid splitDetails JSON: " + value);
+        }
+    }
+
+    private LocalDateTime parseTimestamp(String value) {
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp: " + value);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package splitwise.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.dto.CreateExpenseRequest;
+import splitwise.dto.IngestionStatusResponse;
+import splitwise.exception.IngestionQueueFullException;
+import splitwise.model.Expense;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExpenseIngestionService - Asynchronous expense creation
+ *
+ * Requests are validated cheaply (split details, currency, referenced users and group exist) and put
+ * on a bounded queue; the caller gets a job id right away and polls its status.
+ * The queue is partitioned by payer, one partition per worker. Every UserPair an expense
+ * touches has the payer as creditor, so two workers never write the same balance row.
+ * Each worker drains its partition in micro-batches:
+ * - a batch is created through ExpenseService in a single transaction
+ * - if any expense of the batch fails, the batch is rolled back and every expense is
+ *   retried in its own transaction, so one bad request never fails the others
+ * - an expense conflicting with a concurrent synchronous request on a balance is retried
+ *
+ * Each expense runs with the security context of the user who submitted it.
+ * When the queue is full, submissions are rejected (429) instead of piling up.
+ *
+ * Accepted jobs live in memory only, so acceptance is best-effort: on shutdown new submissions
+ * are rejected and the workers drain the queue for up to expense-ingestion.shutdown-timeout-seconds;
+ * jobs still queued after that, or lost to a crash, are never created.
+ */
+@Service
+public class ExpenseIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseIngestionService.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Value("${expense-ingestion.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${expense-ingestion.workers:2}")
+    private int workers;
+
+    @Value("${expense-ingestion.batch-size:20}")
+    private int batchSize;
+
+    @Value("${expense-ingestion.status-retention-minutes:60}")
+    private long statusRetentionMinutes;
+
+    @Value("${expense-ingestion.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private List<BlockingQueue<IngestionJob>> partitions;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService workerPool;
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void init() {
+        partitions = new ArrayList<>(workers);
+        int partitionCapacity = Math.max(1, queueCapacity / workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayBlockingQueue<>(partitionCapacity));
+        }
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "expense-ingestion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (BlockingQueue<IngestionJob> partition : partitions) {
+            workerPool.execute(() -> drainQueue(partition));
+        }
+    }
+
+    /**
+     * Validates and enqueues an expense.
+     *
+     * @param request The expense, a group expense if groupId is set
+     * @return The initial status of the job
+     * @throws IllegalArgumentException if the request is invalid
+     * @throws IngestionQueueFullException if the queue is full
+     */
+    public IngestionStatusResponse submit(CreateExpenseRequest request) {
+        expenseService.validateSplitDetails(request.getSplitType(), request.getSplitDetails(), request.getParticipantIds());
+        currencyService.resolveConvertible(request.getCurrency());
+        userService.getUsers(expenseService.collectReferencedUserIds(
+                request.getPayerId(), request.getParticipantIds(), request.getSplitDetails()));
+        if (request.getGroupId() != null) {
+            groupService.getGroup(request.getGroupId());
+        }
+
+        if (!running) {
+            throw new IngestionQueueFullException("Expense ingestion is shutting down, please retry later", 1);
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), request, authentication);
+        BlockingQueue<IngestionJob> partition = partitions.get(Math.floorMod(request.getPayerId().hashCode(), workers));
+        if (!partition.offer(job)) {
+            throw new IngestionQueueFullException("Expense ingestion queue is full, please retry later", 1);
+        }
+        jobs.put(job.id, job);
+        return toResponse(job);
+    }
+
+    /**
+     * Returns the status of a job submitted by the given user.
+     */
+    public IngestionStatusResponse getStatus(String jobId, String userId) {
+        IngestionJob job = jobs.get(jobId);
+        if (job == null || !job.authentication.getName().equals(userId)) {
+            throw new IllegalArgumentException("Ingestion job with ID " + jobId + " not found");
+        }
+        return toResponse(job);
+    }
+
+    /**
+     * Returns the number of expenses waiting in the queue.
+     */
+    public int getQueueDepth() {
+        return partitions.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    /**
+     * Forgets finished jobs once their retention period is over.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(statusRetentionMinutes);
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(cutoff));
+    }
+
+    private void drainQueue(BlockingQueue<IngestionJob> queue) {
+        List<IngestionJob> batch = new ArrayList<>(batchSize);
+        // After shutdown starts, keep going until the partition is drained
+        while (running || !queue.isEmpty()) {
+            try {
+                IngestionJob first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in expense ingestion worker", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<IngestionJob> batch) {
+        batch.forEach(job -> job.status = PROCESSING);
+
+        if (batch.size() > 1) {
+            try {
+                List<Expense> created = transactionTemplate.execute(status -> {
+                    List<Expense> expenses = new ArrayList<>(batch.size());
+                    for (IngestionJob job : batch) {
+                        expenses.add(createAs(job));
+                    }
+                    return expenses;
+                });
+                for (int i = 0; i < batch.size(); i++) {
+                    complete(batch.get(i), created.get(i).getId(), null);
+                }
+                return;
+            } catch (RuntimeException e) {
+                logger.debug("Ingestion batch of {} rolled back, retrying one by one: {}", batch.size(), e.getMessage());
+            }
+        }
+
+        for (IngestionJob job : batch) {
+            try {
+                Expense expense = createWithRetry(job);
+                complete(job, expense.getId(), null);
+            } catch (RuntimeException e) {
+                complete(job, null, e.getMessage());
+            }
+        }
+    }
+
+    // A synchronous request may update or create the same UserPair concurrently
+    private Expense createWithRetry(IngestionJob job) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> createAs(job));
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Expense createAs(IngestionJob job) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(job.authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            CreateExpenseRequest request = job.request;
+            if (request.getGroupId() != null) {
+                return expenseService.addGroupExpense(request.getTitle(), request.getDescription(), request.getAmount(),
+                        request.getPayerId(), request.getGroupId(), request.getParticipantIds(),
+                        request.getSplitType(), request.getSplitDetails(), request.getIsSettleUp(), request.getCurrency());
+            }
+            return expenseService.addExpense(request.getTitle(), request.getDescription(), request.getAmount(),
+                    request.getPayerId(), request.getParticipantIds(),
+                    request.getSplitType(), request.getSplitDetails(), request.getIsSettleUp(), request.getCurrency());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void complete(IngestionJob job, String expenseId, String error) {
+        job.expenseId = expenseId;
+        job.error = error;
+        job.completedAt = LocalDateTime.now();
+        job.status = error == null ? COMPLETED : FAILED;
+    }
+
+    private IngestionStatusResponse toResponse(IngestionJob job) {
+        IngestionStatusResponse response = new IngestionStatusResponse();
+        response.setJobId(job.id);
+        response.setStatus(job.status);
+        response.setStatusUrl("/api/expenses/ingestion/" + job.id);
+        response.setExpenseId(job.expenseId);
+        response.setError(job.error);
+        response.setSubmittedAt(job.submittedAt);
+        response.setCompletedAt(job.completedAt);
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Expense ingestion did not drain within {}s, dropping {} queued jobs",
+                        shutdownTimeoutSeconds, getQueueDepth());
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class IngestionJob {
+        final String id;
+        final CreateExpenseRequest request;
+        final Authentication authentication;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        volatile String status = QUEUED;
+        volatile String expenseId;
+        volatile String error;
+        volatile LocalDateTime completedAt;
+
+        IngestionJob(String id, CreateExpenseRequest request, Authentication authentication) {
+            this.id = id;
+            this.request = request;
+            this.authentication = authentication;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import splitwise.event.ExpenseAddedEvent;
+import splitwise.event.ExpenseDeletedEvent;
 import splitwise.event.ExpenseUpdatedEvent;
 import splitwise.model.Expense;
 import splitwise.repository.ExpenseRepository;
@@ -46,9 +47,8 @@ public class ExpenseManager {
     
     @Transactional
     public void deleteExpense(String id) {
-        if (!expenseRepository.existsById(id)) {
-            throw new IllegalArgumentException("Expense with ID " + id + " not found");
-        }
-        expenseRepository.deleteById(id);
+        Expense expense = getExpenseById(id);
+        expenseRepository.delete(expense);
+        eventPublisher.publishEvent(new ExpenseDeletedEvent(this, expense));
     }
 }
@@ -0,0 +1,256 @@
+package splitwise.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import splitwise.dto.ExpenseRevisionResponse;
+import splitwise.event.ExpenseDeletedEvent;
+import splitwise.model.Expense;
+import splitwise.model.ExpenseRevision;
+import splitwise.model.User;
+import splitwise.repository.ExpenseRevisionRepository;
+import splitwise.util.SharesCodec;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ExpenseRevisionService - Revision history of edited expenses
+ *
+ * - Revision 1 is the expense as created. It is recorded when the expense is first edited,
+ *   so expenses that are never edited cost nothing
+ * - Each edit adds a revision holding only what changed against the previous one. Shares are
+ *   compared per user, so changing one share of a large group stores a single entry
+ * - Every expense-history.snapshot-every revisions a full snapshot is stored instead, so any
+ *   revision is rebuilt from its snapshot plus at most snapshot-every - 1 deltas
+ *
+ * Revisions are written in the transaction of the edit and dropped with the expense.
+ */
+@Service
+public class ExpenseRevisionService {
+
+    private static final String SHARES = "shares";
+
+    // Delta entry listing the users whose share was dropped
+    private static final String SHARES_REMOVED = "sharesRemoved";
+
+    @Value("${expense-history.snapshot-every:10}")
+    private int snapshotEvery;
+
+    @Autowired
+    private ExpenseRevisionRepository revisionRepository;
+
+    @Autowired
+    private ExpenseManager expenseManager;
+
+    /**
+     * The tracked state of an expense: its fields as JSON values and its shares by user ID.
+     */
+    record State(String expenseId, LocalDateTime timestamp, Map<String, Object> fields, Map<String, Double> shares) {
+    }
+
+    /**
+     * Captures the state of an expense, before or after an edit.
+     */
+    State capture(Expense expense) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("title", expense.getTitle());
+        fields.put("description", expense.getDescription());
+        fields.put("amount", expense.getAmount());
+        fields.put("currency", expense.getCurrency());
+        fields.put("splitType", expense.getSplitType() != null ? expense.getSplitType().name() : null);
+        fields.put("payerId", expense.getPayer() != null ? expense.getPayer().getUserId() : null);
+        fields.put("participantIds", expense.getParticipants() != null
+                ? expense.getParticipants().stream().map(User::getUserId).toList() : null);
+        fields.put("splitDetails", expense.getSplitDetails());
+        fields.put("groupId", expense.getGroup() != null ? expense.getGroup().getGroupId() : null);
+        fields.put("isSettleUp", expense.getIsSettleUp());
+        fields.put("timestamp", expense.getTimestamp() != null ? expense.getTimestamp().toString() : null);
+        return new State(expense.getId(), expense.getTimestamp(), fields, expense.getSharesForJson());
+    }
+
+    /**
+     * Records an edit of an expense, in the caller's transaction.
+     *
+     * @param before The expense before the edit, which is the latest recorded revision if there is one
+     * @param after  The expense after the edit
+     */
+    @Transactional
+    public void recordEdit(State before, State after, String editedBy) {
+        int last = revisionRepository.findTopByExpenseIdOrderByRevisionDesc(before.expenseId())
+                .map(ExpenseRevision::getRevision)
+                .orElse(0);
+        if (last == 0) {
+            revisionRepository.save(snapshot(before, 1, List.of(), null, before.timestamp()));
+            last = 1;
+        }
+
+        int revision = last + 1;
+        List<String> changedFields = new ArrayList<>();
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> field : after.fields().entrySet()) {
+            if (!Objects.equals(before.fields().get(field.getKey()), field.getValue())) {
+                changedFields.add(field.getKey());
+                changes.put(field.getKey(), field.getValue());
+            }
+        }
+
+        Map<String, Double> changedShares = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> share : after.shares().entrySet()) {
+            Double previous = before.shares().get(share.getKey());
+            if (previous == null || Double.compare(previous, share.getValue()) != 0) {
+                changedShares.put(share.getKey(), share.getValue());
+            }
+        }
+        List<String> removedShares = before.shares().keySet().stream()
+                .filter(userId -> !after.shares().containsKey(userId))
+                .toList();
+        if (!changedShares.isEmpty() || !removedShares.isEmpty()) {
+            changedFields.add(SHARES);
+        }
+
+        if ((revision - 1) % snapshotEvery == 0) {
+            revisionRepository.save(snapshot(after, revision, changedFields, editedBy, LocalDateTime.now()));
+            return;
+        }
+
+        if (!removedShares.isEmpty()) {
+            changes.put(SHARES_REMOVED, removedShares);
+        }
+        ExpenseRevision delta = newRevision(after.expenseId(), revision, false, changedFields, editedBy, LocalDateTime.now());
+        delta.setFields(changes);
+        delta.setSharesPacked(changedShares.isEmpty() ? null : SharesCodec.encode(changedShares));
+        revisionRepository.save(delta);
+    }
+
+    /**
+     * Revisions of an expense, oldest first, with the fields each one changed.
+     * An expense that was never edited has a single revision.
+     *
+     * @throws IllegalArgumentException if the expense has no revisions and does not exist
+     */
+    @Transactional(readOnly = true)
+    public List<ExpenseRevisionResponse> getHistory(String expenseId) {
+        List<ExpenseRevision> revisions = revisionRepository.findByExpenseIdOrderByRevision(expenseId);
+        if (revisions.isEmpty()) {
+            State current = capture(expenseManager.getExpenseById(expenseId));
+            return List.of(toResponse(expenseId, 1, null, current.timestamp(), ""));
+        }
+        return revisions.stream()
+                .map(revision -> toResponse(expenseId, revision.getRevision(), revision.getEditedBy(),
+                        revision.getEditedAt(), revision.getChangedFields()))
+                .toList();
+    }
+
+    /**
+     * Rebuilds an expense as of one of its revisions.
+     *
+     * @throws IllegalArgumentException if the revision does not exist
+     */
+    @Transactional(readOnly = true)
+    public ExpenseRevisionResponse getRevision(String expenseId, int revision) {
+        ExpenseRevision snapshot = revisionRepository
+                .findTopByExpenseIdAndSnapshotTrueAndRevisionLessThanEqualOrderByRevisionDesc(expenseId, revision)
+                .orElse(null);
+        if (snapshot == null) {
+            if (revision != 1 || revisionRepository.findTopByExpenseIdOrderByRevisionDesc(expenseId).isPresent()) {
+                throw revisionNotFound(expenseId, revision);
+            }
+            // Never edited: revision 1 is the expense as it is
+            State current = capture(expenseManager.getExpenseById(expenseId));
+            ExpenseRevisionResponse response = toResponse(expenseId, 1, null, current.timestamp(), "");
+            response.setExpense(current.fields());
+            response.setShares(current.shares());
+            return response;
+        }
+
+        Map<String, Object> fields = new LinkedHashMap<>(snapshot.getFields());
+        Map<String, Double> shares = new LinkedHashMap<>(SharesCodec.decode(snapshot.getSharesPacked()));
+        ExpenseRevision target = snapshot;
+        if (snapshot.getRevision() < revision) {
+            for (ExpenseRevision delta : revisionRepository.findByExpenseIdAndRevisionBetweenOrderByRevision(
+                    expenseId, snapshot.getRevision() + 1, revision)) {
+                applyDelta(delta, fields, shares);
+                target = delta;
+            }
+        }
+        if (target.getRevision() != revision) {
+            throw revisionNotFound(expenseId, revision);
+        }
+
+        ExpenseRevisionResponse response = toResponse(expenseId, revision, target.getEditedBy(),
+                target.getEditedAt(), target.getChangedFields());
+        response.setExpense(fields);
+        response.setShares(shares);
+        return response;
+    }
+
+    /**
+     * Event listener for expense deleted events.
+     */
+    @EventListener
+    @Transactional
+    public void handleExpenseDeleted(ExpenseDeletedEvent event) {
+        revisionRepository.deleteByExpenseId(event.getExpense().getId());
+    }
+
+    private void applyDelta(ExpenseRevision delta, Map<String, Object> fields, Map<String, Double> shares) {
+        if (delta.getFields() != null) {
+            for (Map.Entry<String, Object> change : delta.getFields().entrySet()) {
+                if (SHARES_REMOVED.equals(change.getKey())) {
+                    for (Object userId : (List<?>) change.getValue()) {
+                        shares.remove(String.valueOf(userId));
+                    }
+                } else {
+                    fields.put(change.getKey(), change.getValue());
+                }
+            }
+        }
+        if (delta.getSharesPacked() != null) {
+            shares.putAll(SharesCodec.decode(delta.getSharesPacked()));
+        }
+    }
+
+    private ExpenseRevision snapshot(State state, int revision, List<String> changedFields,
+                                     String editedBy, LocalDateTime editedAt) {
+        ExpenseRevision snapshot = newRevision(state.expenseId(), revision, true, changedFields, editedBy, editedAt);
+        snapshot.setFields(state.fields());
+        snapshot.setSharesPacked(SharesCodec.encode(state.shares()));
+        return snapshot;
+    }
+
+    private ExpenseRevision newRevision(String expenseId, int revision, boolean snapshot, List<String> changedFields,
+                                        String editedBy, LocalDateTime editedAt) {
+        ExpenseRevision entity = new ExpenseRevision();
+        entity.setExpenseId(expenseId);
+        entity.setRevision(revision);
+        entity.setSnapshot(snapshot);
+        entity.setChangedFields(String.join(",", changedFields));
+        entity.setEditedBy(editedBy);
+        entity.setEditedAt(editedAt);
+        return entity;
+    }
+
+    private ExpenseRevisionResponse toResponse(String expenseId, int revision, String editedBy,
+                                               LocalDateTime editedAt, String changedFields) {
+        ExpenseRevisionResponse response = new ExpenseRevisionResponse();
+        response.setExpenseId(expenseId);
+        response.setRevision(revision);
+        response.setEditedBy(editedBy);
+        response.setEditedAt(editedAt);
+        response.setChangedFields(changedFields == null || changedFields.isEmpty()
+                ? List.of() : Arrays.asList(changedFields.split(",")));
+        return response;
+    }
+
+    private IllegalArgumentException revisionNotFound(String expenseId, int revision) {
+        return new IllegalArgumentException("Revision " + revision + " of expense " + expenseId + " not found");
+    }
+}
@@ -0,0 +1,418 @@
+package splitwise.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.dto.ExpenseSearchHit;
+import splitwise.dto.ExpenseSearchResponse;
+import splitwise.event.ExpenseAddedEvent;
+import splitwise.event.ExpenseDeletedEvent;
+import splitwise.event.ExpenseUpdatedEvent;
+import splitwise.event.ExpensesImportedEvent;
+import splitwise.model.Expense;
+import splitwise.model.User;
+import splitwise.repository.ExpenseRepository;
+import splitwise.util.SharesCodec;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * ExpenseSearchService - In-memory full-text search over expense titles and descriptions
+ *
+ * Keeps one inverted index per user (expenses they paid for or take part in) and one per group,
+ * so a search only walks the postings of the caller's own expenses. Each index maps tokens to
+ * expense IDs in a sorted map, which serves both exact tokens and prefixes ("air" -> "airbnb")
+ * with a range lookup.
+ *
+ * Ranking: every query token must match. A match in the title weighs more than one in the
+ * description, and an exact token more than a prefix. Ties go to the most recent expense.
+ *
+ * The index is built at startup and kept up to date from the expense events after each commit.
+ * Archived expenses are removed from it (see ExpenseArchiveService).
+ */
+@Service
+public class ExpenseSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpenseSearchService.class);
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private static final int MAX_LIMIT = 100;
+
+    private static final int TITLE_WEIGHT = 3;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // An exact token match scores this many times a prefix match
+    private static final double EXACT_BOOST = 2.0;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private GroupMembershipService groupMembershipService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+
+    private final Map<String, ScopeIndex> scopes = new ConcurrentHashMap<>();
+
+    // Expenses deleted while the startup build runs, so the build does not bring them back
+    private final Set<String> removedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean building;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Builds the index from the expenses table once the application is up.
+     * Changes committed meanwhile are applied by the event listeners and take precedence.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        building = true;
+        try {
+            long start = System.currentTimeMillis();
+            int indexed = readOnlyTemplate.execute(status -> {
+                int count = 0;
+                try (Stream<Object[]> rows = expenseRepository.streamSearchDocuments()) {
+                    for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                        Document document = toDocument(row);
+                        if (!removedDuringBuild.contains(document.id) && documents.putIfAbsent(document.id, document) == null) {
+                            addToScopes(document);
+                            count++;
+                        }
+                    }
+                }
+                return count;
+            });
+            logger.info("Expense search index built: {} expenses in {} ms", indexed, System.currentTimeMillis() - start);
+        } finally {
+            building = false;
+            removedDuringBuild.clear();
+        }
+    }
+
+    /**
+     * Event listener for expense added events.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleExpenseAdded(ExpenseAddedEvent event) {
+        index(toDocument(event.getExpense()));
+    }
+
+    /**
+     * Event listener for expense updated events.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleExpenseUpdated(ExpenseUpdatedEvent event) {
+        index(toDocument(event.getExpense()));
+    }
+
+    /**
+     * Event listener for bulk imports.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleExpensesImported(ExpensesImportedEvent event) {
+        for (Expense expense : event.getExpenses()) {
+            index(toDocument(expense));
+        }
+    }
+
+    /**
+     * Event listener for expense deleted events.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleExpenseDeleted(ExpenseDeletedEvent event) {
+        remove(List.of(event.getExpense().getId()));
+    }
+
+    /**
+     * Removes expenses from the index, e.g. once they are archived.
+     */
+    public void remove(Collection<String> expenseIds) {
+        for (String expenseId : expenseIds) {
+            if (building) {
+                removedDuringBuild.add(expenseId);
+            }
+            Document removed = documents.remove(expenseId);
+            if (removed != null) {
+                removeFromScopes(removed);
+            }
+        }
+    }
+
+    /**
+     * Searches the expenses of a user (payer or participant).
+     */
+    public ExpenseSearchResponse searchUserExpenses(String userId, String query, Integer limit) {
+        return search(userScope(userId), query, limit);
+    }
+
+    /**
+     * Searches the expenses of a group.
+     *
+     * @throws IllegalArgumentException if the caller is not a member of the group
+     */
+    public ExpenseSearchResponse searchGroupExpenses(String groupId, String currentUserId, String query, Integer limit) {
+        if (!groupMembershipService.getMembership(groupId).contains(currentUserId)) {
+            throw new IllegalArgumentException("You must be a member of the group to search its expenses");
+        }
+        return search(groupScope(groupId), query, limit);
+    }
+
+    private ExpenseSearchResponse search(String scopeKey, String query, Integer limit) {
+        long start = System.nanoTime();
+        int maxHits = limit == null ? DEFAULT_LIMIT : limit;
+        if (maxHits <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        maxHits = Math.min(maxHits, MAX_LIMIT);
+
+        Set<String> queryTokens = new LinkedHashSet<>(tokenize(query));
+        if (queryTokens.isEmpty()) {
+            throw new IllegalArgumentException("Search query must contain at least one letter or digit");
+        }
+
+        Map<String, Double> scores = null;
+        ScopeIndex scope = scopes.get(scopeKey);
+        if (scope != null) {
+            scope.lock.readLock().lock();
+            try {
+                for (String token : queryTokens) {
+                    Map<String, Double> tokenScores = scope.match(token);
+                    if (scores == null) {
+                        scores = tokenScores;
+                    } else {
+                        scores.keySet().retainAll(tokenScores.keySet());
+                        scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                    }
+                    if (scores.isEmpty()) {
+                        break;
+                    }
+                }
+            } finally {
+                scope.lock.readLock().unlock();
+            }
+        }
+
+        List<ExpenseSearchHit> hits = new ArrayList<>();
+        if (scores != null) {
+            for (Map.Entry<String, Double> match : scores.entrySet()) {
+                Document document = documents.get(match.getKey());
+                if (document != null) {
+                    hits.add(document.toHit(match.getValue()));
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(ExpenseSearchHit::getScore).reversed()
+                .thenComparing(ExpenseSearchHit::getTimestamp, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(ExpenseSearchHit::getId));
+
+        int totalMatches = hits.size();
+        List<ExpenseSearchHit> page = hits.size() > maxHits ? new ArrayList<>(hits.subList(0, maxHits)) : hits;
+        return new ExpenseSearchResponse(query, page, totalMatches, (System.nanoTime() - start) / 1000);
+    }
+
+    private void index(Document document) {
+        removedDuringBuild.remove(document.id);
+        Document previous = documents.put(document.id, document);
+        if (previous != null) {
+            removeFromScopes(previous);
+        }
+        addToScopes(document);
+    }
+
+    private void addToScopes(Document document) {
+        for (String scopeKey : document.scopeKeys()) {
+            ScopeIndex scope = scopes.computeIfAbsent(scopeKey, key -> new ScopeIndex());
+            scope.lock.writeLock().lock();
+            try {
+                for (Map.Entry<String, Integer> term : document.termWeights.entrySet()) {
+                    scope.postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(document.id, term.getValue());
+                }
+            } finally {
+                scope.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void removeFromScopes(Document document) {
+        for (String scopeKey : document.scopeKeys()) {
+            ScopeIndex scope = scopes.get(scopeKey);
+            if (scope == null) {
+                continue;
+            }
+            scope.lock.writeLock().lock();
+            try {
+                for (String token : document.termWeights.keySet()) {
+                    Map<String, Integer> ids = scope.postings.get(token);
+                    if (ids != null && ids.remove(document.id) != null && ids.isEmpty()) {
+                        scope.postings.remove(token);
+                    }
+                }
+            } finally {
+                scope.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Document toDocument(Expense expense) {
+        Set<String> userIds = new LinkedHashSet<>();
+        if (expense.getPayer() != null) {
+            userIds.add(expense.getPayer().getUserId());
+        }
+        if (expense.getShares() != null) {
+            for (User participant : expense.getShares().keySet()) {
+                userIds.add(participant.getUserId());
+            }
+        }
+        return new Document(expense.getId(), expense.getTitle(), expense.getDescription(), expense.getTimestamp(),
+                expense.getPayer() != null ? expense.getPayer().getUserId() : null,
+                expense.getGroup() != null ? expense.getGroup().getGroupId() : null,
+                userIds);
+    }
+
+    // Row layout of ExpenseRepository.streamSearchDocuments
+    private Document toDocument(Object[] row) {
+        String payerId = (String) row[4];
+        Set<String> userIds = new LinkedHashSet<>();
+        userIds.add(payerId);
+        if (row[6] != null) {
+            userIds.addAll(SharesCodec.decode((byte[]) row[6]).keySet());
+        }
+        return new Document((String) row[0], (String) row[1], (String) row[2], (LocalDateTime) row[3],
+                payerId, (String) row[5], userIds);
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String userScope(String userId) {
+        return "user:" + userId;
+    }
+
+    private static String groupScope(String groupId) {
+        return "group:" + groupId;
+    }
+
+    private static class ScopeIndex {
+        // Token -> expense ID -> field weight of the token in that expense
+        final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // Best score per expense for one query token: exact match or any token it prefixes
+        Map<String, Double> match(String queryToken) {
+            Map<String, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Map<String, Integer>> posting
+                    : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).entrySet()) {
+                double boost = posting.getKey().equals(queryToken) ? EXACT_BOOST : 1.0;
+                for (Map.Entry<String, Integer> match : posting.getValue().entrySet()) {
+                    scores.merge(match.getKey(), match.getValue() * boost, Math::max);
+                }
+            }
+            return scores;
+        }
+    }
+
+    private static class Document {
+        final String id;
+        final String title;
+        final String description;
+        final LocalDateTime timestamp;
+        final String payerId;
+        final String groupId;
+        final Set<String> userIds;
+        // Token -> field weight (title and/or description)
+        final Map<String, Integer> termWeights = new HashMap<>();
+
+        Document(String id, String title, String description, LocalDateTime timestamp,
+                 String payerId, String groupId, Set<String> userIds) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.timestamp = timestamp;
+            this.payerId = payerId;
+            this.groupId = groupId;
+            this.userIds = userIds;
+            for (String token : new HashSet<>(tokenize(title))) {
+                termWeights.merge(token, TITLE_WEIGHT, Integer::sum);
+            }
+            for (String token : new HashSet<>(tokenize(description))) {
+                termWeights.merge(token, DESCRIPTION_WEIGHT, Integer::sum);
+            }
+        }
+
+        List<String> scopeKeys() {
+            List<String> keys = new ArrayList<>(userIds.size() + 1);
+            for (String userId : userIds) {
+                keys.add(userScope(userId));
+            }
+            if (groupId != null) {
+                keys.add(groupScope(groupId));
+            }
+            return keys;
+        }
+
+        ExpenseSearchHit toHit(double score) {
+            ExpenseSearchHit hit = new ExpenseSearchHit();
+            hit.setId(id);
+            hit.setTitle(title);
+            hit.setDescription(description);
+            hit.setTimestamp(timestamp);
+            hit.setPayerId(payerId);
+            hit.setGroupId(groupId);
+            hit.setScore(score);
+            return hit;
+        }
+    }
+}
@@ -5,10 +5,17 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import splitwise.dto.ExpenseFilter;
+import splitwise.dto.ExpensePageResponse;
+import splitwise.dto.ExpenseResponse;
+import splitwise.model.ArchivedExpense;
 import splitwise.model.Expense;
 import splitwise.model.Group;
 import splitwise.model.User;
+import splitwise.repository.ArchivedExpenseRepository;
 import splitwise.repository.ExpenseRepository;
+import splitwise.repository.ExpenseSpecifications;
+import splitwise.util.ExpenseCursor;
 import splitwise.util.Split;
 import splitwise.util.SplitFactory;
 import splitwise.util.SplitTypes;
@@ -27,18 +34,57 @@ public class ExpenseService {
 
     @Autowired
     private GroupService groupService;
+
+    @Autowired
+    private GroupMembershipService groupMembershipService;
     
     @Autowired
     private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ArchivedExpenseRepository archivedExpenseRepository;
     
     @Autowired
     private BalanceSheet balanceSheet;
 
+    @Autowired
+    private DtoMapperService dtoMapper;
+
+    @Autowired
+    private SpendRollupService spendRollupService;
+
+    @Autowired
+    private SplitRuleService splitRuleService;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private ExpenseRevisionService revisionService;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Split detail entries keyed by user ID
+    private static final List<String> SPLIT_DETAIL_USER_MAPS = List.of("percentages", "shares", "amounts", "adjustments");
+
     // Add expense between two users (or more)
     @Transactional
     public Expense addExpense(String title, String description, double amount,
                              String payerId, List<String> participantIds,
-                             SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp) {
+                             SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp,
+                             String currency) {
+        return addExpense(title, description, amount, payerId, participantIds, splitType, splitDetails,
+                isSettleUp, currency, LocalDateTime.now());
+    }
+
+    // Same as above, dated at the given time (e.g. the scheduled time of a recurring expense)
+    @Transactional
+    public Expense addExpense(String title, String description, double amount,
+                             String payerId, List<String> participantIds,
+                             SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp,
+                             String currency, LocalDateTime timestamp) {
         
         // Get the currently authenticated user
         String currentUserId = getCurrentUserId();
@@ -49,22 +95,23 @@ public class ExpenseService {
         // Validate that required split details are provided based on split type
         validateSplitDetails(splitType, splitDetails, participantIds);
         
-        User payer = userService.getUser(payerId);
+        // Resolve payer, participants and split detail users with a single lookup
+        Map<String, User> users = userService.getUsers(
+                collectReferencedUserIds(payerId, participantIds, splitDetails));
+        User payer = users.get(payerId);
         List<User> participants = new ArrayList<>();
         
         for (String participantId : participantIds) {
-            participants.add(userService.getUser(participantId));
+            participants.add(users.get(participantId));
         }
         
-        // Convert user IDs to User objects in split details if needed
-        Map<String, Object> processedSplitDetails = processSplitDetails(splitDetails, splitType);
-        
-        Split split = SplitFactory.createSplit(splitType);
-        Map<User, Double> shares = split.calculateSplit(amount, participants, processedSplitDetails);
+        String expenseCurrency = currencyService.resolveConvertible(currency);
+        Map<User, Double> shares = calculateShares(splitType, null, amount, participants, splitDetails, expenseCurrency);
         
         String expenseId = UUID.randomUUID().toString();
-        Expense expense = new Expense(expenseId, title, splitType, amount, payer, participants, shares, splitDetails, LocalDateTime.now(), isSettleUp);
+        Expense expense = new Expense(expenseId, title, splitType, amount, payer, participants, shares, splitDetails, timestamp, isSettleUp);
         expense.setDescription(description);
+        expense.setCurrency(expenseCurrency);
         
         expenseManager.addExpense(expense);
         return expense;
@@ -74,29 +121,43 @@ public class ExpenseService {
     @Transactional
     public Expense addGroupExpense(String title, String description, double amount,
                                   String payerId, String groupId, List<String> participantIds,
-                                  SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp) {
+                                  SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp,
+                                  String currency) {
+        return addGroupExpense(title, description, amount, payerId, groupId, participantIds, splitType,
+                splitDetails, isSettleUp, currency, LocalDateTime.now());
+    }
+
+    // Same as above, dated at the given time (e.g. the scheduled time of a recurring expense)
+    @Transactional
+    public Expense addGroupExpense(String title, String description, double amount,
+                                  String payerId, String groupId, List<String> participantIds,
+                                  SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp,
+                                  String currency, LocalDateTime timestamp) {
         
         // Get the currently authenticated user
         String currentUserId = getCurrentUserId();
         
-        User payer = userService.getUser(payerId);
+        Set<String> referencedUserIds = collectReferencedUserIds(payerId, participantIds, splitDetails);
+        referencedUserIds.add(currentUserId);
+        Map<String, User> users = userService.getUsers(referencedUserIds);
+        
+        User payer = users.get(payerId);
+        GroupMembershipService.Membership members = groupMembershipService.getMembership(groupId);
         Group group = groupService.getGroup(groupId);
-        List<User> groupMembers = group.getUserList();
         
         // Ensure current user is a member of the group
-        User currentUser = userService.getUser(currentUserId);
-        if (!groupMembers.contains(currentUser)) {
+        if (!members.contains(currentUserId)) {
             throw new IllegalArgumentException("You must be a member of the group to add expenses");
         }
         
         // Validate that required split details are provided based on split type
         List<String> finalParticipantIds = (participantIds != null && !participantIds.isEmpty())
             ? participantIds
-            : groupMembers.stream().map(User::getUserId).toList();
+            : List.copyOf(members.memberIds());
         validateSplitDetails(splitType, splitDetails, finalParticipantIds);
         
         // Ensure payer is part of the group
-        if (!groupMembers.contains(payer)) {
+        if (!members.contains(payerId)) {
             throw new IllegalArgumentException("Payer must be a member of the group");
         }
         
@@ -104,26 +165,23 @@ public class ExpenseService {
         List<User> participants = new ArrayList<>();
         if (participantIds != null && !participantIds.isEmpty()) {
             for (String participantId : participantIds) {
-                User participant = userService.getUser(participantId);
                 // Ensure all participants are members of the group
-                if (!groupMembers.contains(participant)) {
+                if (!members.contains(participantId)) {
                     throw new IllegalArgumentException("User " + participantId + " is not a member of the group");
                 }
-                participants.add(participant);
+                participants.add(users.get(participantId));
             }
         } else {
-            participants = new ArrayList<>(groupMembers);
+            participants = new ArrayList<>(userService.getUsers(members.memberIds()).values());
         }
         
-        // Convert user IDs to User objects in split details if needed
-        Map<String, Object> processedSplitDetails = processSplitDetails(splitDetails, splitType);
-        
-        Split split = SplitFactory.createSplit(splitType);
-        Map<User, Double> shares = split.calculateSplit(amount, participants, processedSplitDetails);
+        String expenseCurrency = currencyService.resolveConvertible(currency);
+        Map<User, Double> shares = calculateShares(splitType, group, amount, participants, splitDetails, expenseCurrency);
         
         String expenseId = UUID.randomUUID().toString();
-        Expense expense = new Expense(expenseId, title, splitType,amount, payer, participants, shares, splitDetails,  LocalDateTime.now(), isSettleUp);
+        Expense expense = new Expense(expenseId, title, splitType,amount, payer, participants, shares, splitDetails,  timestamp, isSettleUp);
         expense.setDescription(description);
+        expense.setCurrency(expenseCurrency);
         expense.setGroup(group);
         
         expenseManager.addExpense(expense);
@@ -136,6 +194,7 @@ public class ExpenseService {
      * 1. Reverses the old expense's balance changes
      * 2. Updates the expense details
      * 3. Applies the new balance changes
+     * 4. Records the edit in the expense's revision history
      */
     @Transactional
     public Expense editExpense(String expenseId, String title, String description,
@@ -143,18 +202,22 @@ public class ExpenseService {
                               SplitTypes splitType, Map<String, Object> splitDetails, Boolean isSettleUp) {
         
         Expense existingExpense = expenseManager.getExpenseById(expenseId);
+        ExpenseRevisionService.State previousState = revisionService.capture(existingExpense);
         
-        // Step 1: Reverse existing balance changes
+        // Step 1: Reverse existing balance changes and spend rollups
         balanceSheet.reverseBalances(existingExpense);
+        spendRollupService.reverse(existingExpense);
         
         // Step 2: Update expense details
-        User payer = payerId != null ? userService.getUser(payerId) : existingExpense.getPayer();
+        Map<String, User> users = userService.getUsers(
+                collectReferencedUserIds(payerId, participantIds, splitDetails));
+        User payer = payerId != null ? users.get(payerId) : existingExpense.getPayer();
         List<User> participants;
         
         if (participantIds != null) {
             participants = new ArrayList<>();
             for (String participantId : participantIds) {
-                participants.add(userService.getUser(participantId));
+                participants.add(users.get(participantId));
             }
         } else {
             participants = existingExpense.getParticipants();
@@ -166,9 +229,8 @@ public class ExpenseService {
         double finalAmount = amount != null ? amount : existingExpense.getAmount();
         
         if (splitType != null || amount != null) {
-            Map<String, Object> processedSplitDetails = processSplitDetails(splitDetails, finalSplitType);
-            Split split = SplitFactory.createSplit(finalSplitType);
-            shares = split.calculateSplit(finalAmount, participants, processedSplitDetails);
+            shares = calculateShares(finalSplitType, existingExpense.getGroup(), finalAmount, participants, splitDetails,
+                    currencyService.currencyOf(existingExpense.getCurrency()));
         } else {
             shares = existingExpense.getShares();
         }
@@ -187,11 +249,13 @@ public class ExpenseService {
         );
         
         updatedExpense.setDescription(description != null ? description : existingExpense.getDescription());
+        updatedExpense.setCurrency(existingExpense.getCurrency());
         updatedExpense.setGroup(existingExpense.getGroup());
         updatedExpense.setVersion(existingExpense.getVersion());
         
         // Step 4: Apply new balance changes
         expenseManager.updateExpense(updatedExpense);
+        revisionService.recordEdit(previousState, revisionService.capture(updatedExpense), getCurrentUserId());
         
         return updatedExpense;
     }
@@ -241,84 +305,127 @@ public class ExpenseService {
     }
     
     /**
-     * Process split details to convert user IDs to User objects for percentage and share splits
+     * Returns one page of expenses matching the filter, newest first.
+     *
+     * Uses keyset pagination on (timestamp, id): the cursor is the position of the last expense
+     * of the previous page, so each page costs the same whatever the table size or page depth.
+     *
+     * @param filter Optional filters (group, payer, participant, date range)
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size, defaults to 50 and is capped at 200
+     * @return The page with the cursor of the next one
+     */
+    @Transactional(readOnly = true)
+    public ExpensePageResponse getExpensesPage(ExpenseFilter filter, String cursor, Integer limit) {
+        return getExpensesPage(filter, cursor, limit, false);
+    }
+    
+    /**
+     * Same as getExpensesPage, optionally including archived expenses (see ExpenseArchiveService).
+     * Both tiers are read with the same keyset condition and merged in (timestamp, id) order,
+     * so cursors stay valid across tiers.
      */
-    private Map<String, Object> processSplitDetails(Map<String, Object> splitDetails, SplitTypes splitType) {
-        if (splitDetails == null) {
-            return splitDetails;
+    @Transactional(readOnly = true)
+    public ExpensePageResponse getExpensesPage(ExpenseFilter filter, String cursor, Integer limit, boolean includeArchived) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+        
+        ExpenseCursor after = (cursor == null || cursor.isBlank()) ? null : ExpenseCursor.decode(cursor);
+        int fetchSize = pageSize + 1; // one extra row tells whether another page exists
+        List<Expense> expenses = expenseRepository.findBy(
+                ExpenseSpecifications.forPage(filter, after),
+                query -> query.sortBy(ExpenseSpecifications.KEYSET_ORDER)
+                        .project("payer", "group")
+                        .limit(fetchSize)
+                        .all());
+        if (includeArchived) {
+            expenses = mergeArchived(expenses, filter, after, fetchSize);
         }
         
-        Map<String, Object> processedDetails = new HashMap<>(splitDetails);
-        
-        // Handle percentage splits - convert user IDs to User objects
-        if (splitType == SplitTypes.SPLIT_BY_PERCENTAGES && splitDetails.containsKey("percentages")) {
-            @SuppressWarnings("unchecked")
-            Map<String, Double> userIdPercentages = (Map<String, Double>) splitDetails.get("percentages");
-            
-            Map<User, Double> userPercentages = new HashMap<>();
-            for (Map.Entry<String, Double> entry : userIdPercentages.entrySet()) {
-                User user = userService.getUser(entry.getKey());
-                try{
-                    userPercentages.put(user, entry.getValue().doubleValue());
-
-                } catch (Exception e){
-                    Exception e1 = e;
-                }
-                entry.getValue();
-            }
-            
-            processedDetails.put("percentages", userPercentages);
+        boolean hasMore = expenses.size() > pageSize;
+        List<Expense> page = hasMore ? expenses.subList(0, pageSize) : expenses;
+        
+        List<ExpenseResponse> items = new ArrayList<>(page.size());
+        for (Expense expense : page) {
+            items.add(dtoMapper.toExpenseResponse(expense));
         }
         
-        // Handle share splits - convert user IDs to User objects
-        if (splitType == SplitTypes.SHARES_SPLIT && splitDetails.containsKey("shares")) {
-            @SuppressWarnings("unchecked")
-            Map<String, Double> userIdShares = (Map<String, Double>) splitDetails.get("shares");
-            
-            Map<User, Double> userShares = new HashMap<>();
-            for (Map.Entry<String, Double> entry : userIdShares.entrySet()) {
-                User user = userService.getUser(entry.getKey());
-                userShares.put(user, entry.getValue());
-            }
-            
-            processedDetails.put("shares", userShares);
+        String nextCursor = null;
+        if (hasMore) {
+            Expense last = page.get(page.size() - 1);
+            nextCursor = new ExpenseCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new ExpensePageResponse(items, nextCursor, hasMore);
+    }
+    
+    private List<Expense> mergeArchived(List<Expense> hot, ExpenseFilter filter, ExpenseCursor after, int fetchSize) {
+        List<ArchivedExpense> archived = archivedExpenseRepository.findBy(
+                ExpenseSpecifications.forPage(filter, after),
+                query -> query.sortBy(ExpenseSpecifications.KEYSET_ORDER)
+                        .project("payer", "group")
+                        .limit(fetchSize)
+                        .all());
+        if (archived.isEmpty()) {
+            return hot;
         }
         
-        // Handle exact amount splits - convert user IDs to User objects
-        if (splitType == SplitTypes.EXACT_AMOUNT_SPLIT && splitDetails.containsKey("amounts")) {
-            @SuppressWarnings("unchecked")
-            Map<String, Double> userIdAmounts = (Map<String, Double>) splitDetails.get("amounts");
-            
-            Map<User, Double> userAmounts = new HashMap<>();
-            for (Map.Entry<String, Double> entry : userIdAmounts.entrySet()) {
-                User user = userService.getUser(entry.getKey());
-                userAmounts.put(user, entry.getValue());
+        List<Expense> merged = new ArrayList<>(hot);
+        for (ArchivedExpense expense : archived) {
+            Expense restored = expense.toExpense();
+            restored.setShareUserResolver(userService::findUsers);
+            merged.add(restored);
+        }
+        merged.sort(Comparator.comparing(Expense::getTimestamp).thenComparing(Expense::getId).reversed());
+        return merged.size() > fetchSize ? merged.subList(0, fetchSize) : merged;
+    }
+    
+    /**
+     * Collects every user ID an expense request refers to: payer, participants and
+     * the keys of the per-user split detail maps, so they can be resolved in one lookup.
+     */
+    Set<String> collectReferencedUserIds(String payerId, List<String> participantIds, Map<String, Object> splitDetails) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (payerId != null) {
+            ids.add(payerId);
+        }
+        if (participantIds != null) {
+            ids.addAll(participantIds);
+        }
+        if (splitDetails != null) {
+            for (String key : SPLIT_DETAIL_USER_MAPS) {
+                if (splitDetails.get(key) instanceof Map<?, ?> userMap) {
+                    userMap.keySet().forEach(id -> ids.add(String.valueOf(id)));
+                }
             }
-            
-            processedDetails.put("amounts", userAmounts);
         }
-        
-        // Handle adjustment splits - convert user IDs to User objects
-        if (splitType == SplitTypes.ADJUSTMENT_SPLIT && splitDetails.containsKey("adjustments")) {
-            @SuppressWarnings("unchecked")
-            Map<String, Double> userIdAdjustments = (Map<String, Double>) splitDetails.get("adjustments");
-
-            Map<User, Double> userAdjustments = new HashMap<>();
-            for (Map.Entry<String, Double> entry : userIdAdjustments.entrySet()) {
-                User user = userService.getUser(entry.getKey());
-                userAdjustments.put(user, entry.getValue());
+        return ids;
+    }
+    
+    /**
+     * Splits the amount among the participants. CUSTOM_RULE_SPLIT uses the group's rule named
+     * in the split details, the other split types their shared strategy.
+     */
+    Map<User, Double> calculateShares(SplitTypes splitType, Group group, double amount,
+                                      List<User> participants, Map<String, Object> splitDetails,
+                                      String currency) {
+        if (splitType == SplitTypes.CUSTOM_RULE_SPLIT) {
+            if (group == null) {
+                throw new IllegalArgumentException("CUSTOM_RULE_SPLIT is only available for group expenses");
             }
-
-            processedDetails.put("adjustments", userAdjustments);
+            Object ruleName = splitDetails != null ? splitDetails.get("rule") : null;
+            Split rule = splitRuleService.getSplit(group.getGroupId(), ruleName != null ? ruleName.toString() : null);
+            return SplitFactory.calculateShares(rule, amount, participants, splitDetails, currency);
         }
-        
-        return processedDetails;
+        return SplitFactory.calculateShares(splitType, amount, participants, splitDetails, currency);
     }
     
     /**
      * Get the currently authenticated user's ID from the security context
      */
-    private String getCurrentUserId() {
+    String getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new IllegalStateException("No authenticated user found");
@@ -343,7 +450,7 @@ public class ExpenseService {
     /**
      * Validate that required split details are provided based on the split type
      */
-    private void validateSplitDetails(SplitTypes splitType, Map<String, Object> splitDetails, List<String> participantIds) {
+    void validateSplitDetails(SplitTypes splitType, Map<String, Object> splitDetails, List<String> participantIds) {
         if (splitType == null) {
             throw new IllegalArgumentException("Split type is required");
         }
@@ -397,6 +504,34 @@ public class ExpenseService {
                 }
                 break;
                 
+            case CUSTOM_RULE_SPLIT:
+                if (splitDetails == null || !(splitDetails.get("rule") instanceof String ruleName) || ruleName.isBlank()) {
+                    throw new IllegalArgumentException("Split details with 'rule' name are required for CUSTOM_RULE_SPLIT");
+                }
+                break;
+                
+            case ITEMIZED_SPLIT:
+                if (splitDetails == null || !(splitDetails.get("items") instanceof List<?> items)) {
+                    throw new IllegalArgumentException("Split details with 'items' list is required for ITEMIZED_SPLIT");
+                }
+                if (items.isEmpty()) {
+                    throw new IllegalArgumentException("Items list cannot be empty");
+                }
+                Set<String> allowedParticipants = participantIds != null ? new HashSet<>(participantIds) : null;
+                for (int line = 0; line < items.size(); line++) {
+                    if (!(items.get(line) instanceof Map<?, ?> item) || item.get("price") == null) {
+                        throw new IllegalArgumentException("Item " + (line + 1) + " must have a price");
+                    }
+                    if (item.get("participantIds") instanceof List<?> itemParticipants && allowedParticipants != null) {
+                        for (Object id : itemParticipants) {
+                            if (!allowedParticipants.contains(String.valueOf(id))) {
+                                throw new IllegalArgumentException("User " + id + " of item " + (line + 1) + " is not a participant");
+                            }
+                        }
+                    }
+                }
+                break;
+                
             default:
                 throw new IllegalArgumentException("Unsupported split type: " + splitType);
         }
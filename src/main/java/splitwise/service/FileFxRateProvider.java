@@ -0,0 +1,141 @@
+package splitwise.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import splitwise.util.CsvParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * FileFxRateProvider - Exchange rates read from a local CSV file (fx.rates-file)
+ *
+ * File layout, one rate per line, header optional:
+ *   date,currency,rate
+ *   2025-01-01,EUR,0.96
+ * where rate is the units of currency worth one unit of the base currency (fx.base-currency).
+ *
+ * Rates are held in memory per currency, ordered by date, so a lookup by date is a floor search.
+ * The file is re-read when it changes; a missing file means only the base currency is known.
+ */
+@Service
+public class FileFxRateProvider implements FxRateProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileFxRateProvider.class);
+
+    // Expenses and balances recorded before currencies have none and are in rupees
+    @Value("${fx.base-currency:INR}")
+    private String baseCurrency;
+
+    @Value("${fx.rates-file:classpath:fx-rates.csv}")
+    private String ratesFile;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    // Currency -> date -> rate, replaced as a whole on reload
+    private volatile Map<String, NavigableMap<LocalDate, Double>> rates = Map.of();
+
+    private long loadedModified = -1;
+
+    @PostConstruct
+    public void init() {
+        baseCurrency = baseCurrency.trim().toUpperCase(Locale.ROOT);
+        reloadIfChanged();
+    }
+
+    @Override
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    @Override
+    public double getRate(String currency, LocalDate date) {
+        if (baseCurrency.equals(currency)) {
+            return 1.0;
+        }
+        NavigableMap<LocalDate, Double> history = rates.get(currency);
+        Map.Entry<LocalDate, Double> rate = history != null ? history.floorEntry(date) : null;
+        if (rate == null) {
+            throw new IllegalArgumentException("No exchange rate for " + currency + " on " + date);
+        }
+        return rate.getValue();
+    }
+
+    @Scheduled(fixedDelayString = "${fx.reload-interval-ms:600000}")
+    public synchronized void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        if (!resource.exists()) {
+            if (loadedModified != 0) {
+                logger.info("No exchange rate file at {}, only {} amounts can be converted", ratesFile, baseCurrency);
+                rates = Map.of();
+                loadedModified = 0;
+            }
+            return;
+        }
+        try {
+            long modified = lastModified(resource);
+            if (modified == loadedModified && modified > 0) {
+                return;
+            }
+            String content = resource.getContentAsString(StandardCharsets.UTF_8);
+            rates = parse(content);
+            loadedModified = modified;
+            logger.info("Loaded exchange rates for {} currencies from {}", rates.size(), ratesFile);
+        } catch (IOException | RuntimeException e) {
+            // Keep serving the rates loaded last
+            logger.error("Could not load exchange rates from {}: {}", ratesFile, e.getMessage());
+        }
+    }
+
+    private Map<String, NavigableMap<LocalDate, Double>> parse(String content) {
+        Map<String, NavigableMap<LocalDate, Double>> parsed = new HashMap<>();
+        List<List<String>> lines = CsvParser.parse(content);
+        for (int i = 0; i < lines.size(); i++) {
+            List<String> line = lines.get(i);
+            String first = line.get(0).trim();
+            if (first.startsWith("#") || (i == 0 && first.equalsIgnoreCase("date"))) {
+                continue;
+            }
+            if (line.size() < 3) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": expected date,currency,rate");
+            }
+            try {
+                LocalDate date = LocalDate.parse(first);
+                String currency = line.get(1).trim().toUpperCase(Locale.ROOT);
+                double rate = Double.parseDouble(line.get(2).trim());
+                if (!(rate > 0)) {
+                    throw new IllegalArgumentException("line " + (i + 1) + ": rate must be positive");
+                }
+                parsed.computeIfAbsent(currency, c -> new TreeMap<>()).put(date, rate);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+
+    // Classpath resources inside a jar have no modification time, they are read once
+    private long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return loadedModified > 0 ? loadedModified : 1;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package splitwise.service;
+
+import java.time.LocalDate;
+
+/**
+ * FxRateProvider - Source of exchange rates, quoted against a base currency
+ *
+ * Implementations keep rates by date; a lookup returns the latest rate published
+ * on or before the requested date.
+ */
+public interface FxRateProvider {
+
+    /**
+     * ISO 4217 code of the currency rates are quoted against.
+     */
+    String getBaseCurrency();
+
+    /**
+     * Units of the currency worth one unit of the base currency on the given date.
+     *
+     * @throws IllegalArgumentException if no rate is known for the currency on or before the date
+     */
+    double getRate(String currency, LocalDate date);
+}
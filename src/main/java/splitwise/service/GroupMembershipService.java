@@ -0,0 +1,81 @@
+package splitwise.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import splitwise.repository.GroupRepository;
+import splitwise.util.TransactionalCache;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * GroupMembershipService - Cached member sets of groups
+ *
+ * Membership checks (adding expenses, managing split rules, joining and leaving) read the
+ * member IDs of a group from the "groupMembers" cache as a hash set, so a check is O(1)
+ * whatever the size of the group and no User entities are loaded for it.
+ *
+ * GroupService evicts a group's entry whenever its members change; see TransactionalCache for
+ * how a concurrent reader is kept from caching the members as they were before the change.
+ */
+@Service
+public class GroupMembershipService {
+
+    public static final String CACHE = "groupMembers";
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private TransactionalCache<String, Membership> memberships;
+
+    @PostConstruct
+    public void init() {
+        Cache cache = cacheManager.getCache(CACHE);
+        memberships = new TransactionalCache<>(groupId -> cache.get(groupId, Membership.class), cache::put, cache::evict);
+    }
+
+    /**
+     * Member IDs of a group, immutable, in the order the database returned them.
+     */
+    public record Membership(String groupId, Set<String> memberIds) {
+
+        public boolean contains(String userId) {
+            return memberIds.contains(userId);
+        }
+
+        public int size() {
+            return memberIds.size();
+        }
+    }
+
+    /**
+     * The members of a group.
+     *
+     * @throws IllegalArgumentException if the group does not exist
+     */
+    public Membership getMembership(String groupId) {
+        return memberships.get(groupId, this::loadMembership);
+    }
+
+    /**
+     * Drops the cached members of a group, now and once more when the current transaction completes.
+     */
+    public void evict(String groupId) {
+        memberships.invalidate(groupId);
+    }
+
+    private Membership loadMembership(String groupId) {
+        Set<String> memberIds = Collections.unmodifiableSet(new LinkedHashSet<>(groupRepository.findMemberIds(groupId)));
+        if (memberIds.isEmpty() && !groupRepository.existsById(groupId)) {
+            throw new IllegalArgumentException("Group with ID " + groupId + " not found");
+        }
+        return new Membership(groupId, memberIds);
+    }
+}
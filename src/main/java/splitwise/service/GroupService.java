@@ -1,35 +1,67 @@
 package splitwise.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import splitwise.dto.GroupMemberPageResponse;
+import splitwise.dto.GroupResponse;
+import splitwise.dto.UserSummaryDTO;
+import splitwise.event.GroupMembershipChangedEvent;
 import splitwise.model.Group;
 import splitwise.model.User;
 import splitwise.repository.GroupRepository;
+import splitwise.repository.GroupSplitRuleRepository;
+import splitwise.repository.UserPairRepository;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class GroupService {
 
+    private static final int DEFAULT_MEMBER_PAGE_SIZE = 50;
+
+    private static final int MAX_MEMBER_PAGE_SIZE = 200;
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private BalanceSheet balanceSheet;
+    private UserPairRepository userPairRepository;
+
+    @Autowired
+    private CurrencyService currencyService;
     
     @Autowired
     private GroupRepository groupRepository;
 
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
+    @Autowired
+    private GroupSplitRuleRepository splitRuleRepository;
+
+    @Autowired
+    private GroupMembershipService groupMembershipService;
+
+    @Autowired
+    private DtoMapperService dtoMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Creates a new group with the specified name, description, and initial members.
      * Automatically generates a unique UUID-based group ID to prevent race conditions.
      *
      * @param name The name of the group
      * @param description Optional description of the group
-     * @param userIds List of user IDs to add as initial group members
+     * @param userIds List of user IDs to add as initial group members, each published as a member who joined
      * @return The created group with generated ID
      */
     @Transactional
@@ -44,13 +76,16 @@ public class GroupService {
         group.setCreatedBy(userService.getUser(currentUserId));
 
         // Convert user IDs to User objects and add to group
-        List<User> users = new ArrayList<>();
-        for (String userId : userIds) {
-            users.add(userService.getUser(userId));
-        }
+        List<User> users = new ArrayList<>(userService.getUsers(userIds).values());
         group.setUserList(users);
 
-        return groupRepository.save(group);
+        ledgerVersionService.bumpUsers(users);
+        Group saved = groupRepository.save(group);
+        // Founding members join like any other member, so their feeds show the group
+        for (User user : users) {
+            eventPublisher.publishEvent(new GroupMembershipChangedEvent(this, groupId, user.getUserId(), true));
+        }
+        return saved;
     }
     
     /**
@@ -72,35 +107,118 @@ public class GroupService {
         return groupRepository.findAll();
     }
 
-    @Transactional
-    public Group addUserToGroup(String groupId, String userId) {
+    /**
+     * Returns a group with its member count and first page of members.
+     */
+    @Transactional(readOnly = true)
+    public GroupResponse getGroupResponse(String groupId) {
         Group group = getGroup(groupId);
-        User user = userService.getUser(userId);
+        long memberCount = groupMembershipService.getMembership(groupId).size();
+        return dtoMapper.toGroupResponse(group, memberCount, findMembersPage(groupId, null, DEFAULT_MEMBER_PAGE_SIZE));
+    }
+
+    /**
+     * Returns groups with their member counts only, counted with a single query.
+     */
+    @Transactional(readOnly = true)
+    public List<GroupResponse> getGroupResponses(List<Group> groups) {
+        Map<String, Long> memberCounts = new HashMap<>();
+        if (!groups.isEmpty()) {
+            for (Object[] row : groupRepository.countMembers(groups.stream().map(Group::getGroupId).toList())) {
+                memberCounts.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        List<GroupResponse> responses = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            responses.add(dtoMapper.toGroupResponse(group, memberCounts.getOrDefault(group.getGroupId(), 0L), null));
+        }
+        return responses;
+    }
+
+    /**
+     * Returns one page of the members of a group, ordered by user ID.
+     *
+     * Uses keyset pagination: the cursor is the ID of the last member of the previous page,
+     * so each page costs the same whatever the size of the group.
+     *
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit  Page size, defaults to 50 and is capped at 200
+     */
+    @Transactional(readOnly = true)
+    public GroupMemberPageResponse getMembersPage(String groupId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_MEMBER_PAGE_SIZE : limit;
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (!groupRepository.existsById(groupId)) {
+            throw new IllegalArgumentException("Group with ID " + groupId + " not found");
+        }
+        return findMembersPage(groupId, cursor, Math.min(pageSize, MAX_MEMBER_PAGE_SIZE));
+    }
+
+    private GroupMemberPageResponse findMembersPage(String groupId, String cursor, int pageSize) {
+        String after = (cursor == null || cursor.isBlank()) ? "" : cursor;
+        // One extra row tells whether another page exists
+        List<User> members = groupRepository.findMembersAfter(groupId, after, Limit.of(pageSize + 1));
+        boolean hasMore = members.size() > pageSize;
+        List<User> page = hasMore ? members.subList(0, pageSize) : members;
+
+        List<UserSummaryDTO> items = new ArrayList<>(page.size());
+        for (User member : page) {
+            items.add(dtoMapper.toUserSummaryDTO(member));
+        }
+        String nextCursor = hasMore ? page.get(page.size() - 1).getUserId() : null;
+        return new GroupMemberPageResponse(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Adds a member by inserting a single membership row; the member list is never loaded.
+     * Membership changes of a group are serialized on the group row.
+     */
+    @Transactional
+    public void addUserToGroup(String groupId, String userId) {
+        userService.getUser(userId);
+        if (groupRepository.lockForMembershipChange(groupId) == 0) {
+            throw new IllegalArgumentException("Group with ID " + groupId + " not found");
+        }
+        GroupMembershipService.Membership members = groupMembershipService.getMembership(groupId);
 
         // Check if user is already in the group
-        if (group.getUserList().contains(user)) {
+        if (members.contains(userId)) {
             throw new IllegalArgumentException("User is already a member of this group");
         }
 
-        group.getUserList().add(user);
-        return groupRepository.save(group);
+        groupRepository.insertMember(groupId, userId);
+        List<String> affectedUserIds = new ArrayList<>(members.memberIds());
+        affectedUserIds.add(userId);
+        ledgerVersionService.bump(affectedUserIds.toArray(new String[0]));
+        groupMembershipService.evict(groupId);
+        eventPublisher.publishEvent(new GroupMembershipChangedEvent(this, groupId, userId, true));
     }
 
+    /**
+     * Removes a member by deleting its membership row, once its balances with the group are settled.
+     */
     @Transactional
-    public Group removeUserFromGroup(String groupId, String userId) {
-        Group group = getGroup(groupId);
+    public void removeUserFromGroup(String groupId, String userId) {
         User user = userService.getUser(userId);
+        if (groupRepository.lockForMembershipChange(groupId) == 0) {
+            throw new IllegalArgumentException("Group with ID " + groupId + " not found");
+        }
+        GroupMembershipService.Membership members = groupMembershipService.getMembership(groupId);
 
         // Check if user is in the group
-        if (!group.getUserList().contains(user)) {
+        if (!members.contains(userId)) {
             throw new IllegalArgumentException("User is not a member of this group");
         }
 
         // Check if user has unsettled balances with other group members
-        validateUserCanLeaveGroup(user, group);
+        validateUserCanLeaveGroup(user, getGroup(groupId));
 
-        group.getUserList().remove(user);
-        return groupRepository.save(group);
+        groupRepository.deleteMember(groupId, userId);
+        ledgerVersionService.bump(members.memberIds().toArray(new String[0]));
+        groupMembershipService.evict(groupId);
+        eventPublisher.publishEvent(new GroupMembershipChangedEvent(this, groupId, userId, false));
     }
     
     /**
@@ -108,6 +226,7 @@ public class GroupService {
      *
      * A user cannot leave a group if they have any outstanding financial obligations
      * with other group members (either owing money or being owed money).
+     * The non-zero balances with members are found with a single query, whatever the size of the group.
      *
      * @param user The user attempting to leave the group
      * @param group The group the user wants to leave
@@ -116,58 +235,55 @@ public class GroupService {
     private void validateUserCanLeaveGroup(User user, Group group) {
         List<String> balanceIssues = new ArrayList<>();
         double totalGroupBalance = 0.0;
+        String currency = currencyService.currencyOf(user.getCurrency());
         
-        // Check balance with each other group member
-        for (User otherUser : group.getUserList()) {
-            if (!otherUser.equals(user)) {
-                double balance = balanceSheet.getBalance(user, otherUser);
-                
-                // Consider balances above 0.001 as significant (handles floating point precision)
-                if (Math.abs(balance) > 0.001) {
-                    String balanceDescription = formatBalanceDescription(user, otherUser, balance);
-                    balanceIssues.add(balanceDescription);
-                    totalGroupBalance += balance;
-                }
-            }
+        // Rows: [kind, counterpartyId, counterpartyName, balance, currency], balances above 0.001 only
+        for (Object[] row : userPairRepository.findUnsettled(user.getUserId(), group.getGroupId())) {
+            double balance = currencyService.convert(((Number) row[3]).doubleValue(), (String) row[4], user.getCurrency());
+            balanceIssues.add(formatBalanceDescription((String) row[2], balance, currency));
+            totalGroupBalance += balance;
         }
         
         // If any unsettled balances exist, prevent the user from leaving
         if (!balanceIssues.isEmpty()) {
-            String errorMessage = createBalanceErrorMessage(user, group, balanceIssues, totalGroupBalance);
+            String errorMessage = createBalanceErrorMessage(user, group, balanceIssues, totalGroupBalance, currency);
             throw new IllegalArgumentException(errorMessage);
         }
     }
     
     /**
-     * Formats a balance description for display in error messages.
+     * Formats a balance description for display in error messages, in the user's currency.
      */
-    private String formatBalanceDescription(User user, User otherUser, double balance) {
+    private String formatBalanceDescription(String otherUserName, double balance, String currency) {
         if (balance > 0) {
-            return String.format("%s owes you Rs. %.2f", otherUser.getName(), balance);
+            return String.format("%s owes you %s %.2f", otherUserName, currency, balance);
         } else {
-            return String.format("You owe %s Rs. %.2f", otherUser.getName(), Math.abs(balance));
+            return String.format("You owe %s %s %.2f", otherUserName, currency, Math.abs(balance));
         }
     }
     
     /**
      * Creates a comprehensive error message when a user cannot leave due to unsettled balances.
      */
-    private String createBalanceErrorMessage(User user, Group group, List<String> balanceIssues, double totalBalance) {
+    private String createBalanceErrorMessage(User user, Group group, List<String> balanceIssues, double totalBalance,
+                                             String currency) {
         return String.format(
-            "Cannot remove user '%s' from group '%s' due to unsettled balances:\n%s\n\nTotal balance: Rs. %.2f\n\nPlease settle all balances before leaving the group.",
+            "Cannot remove user '%s' from group '%s' due to unsettled balances:\n%s\n\nTotal balance: %s %.2f\n\nPlease settle all balances before leaving the group.",
             user.getName(),
             group.getName(),
             String.join("\n", balanceIssues),
+            currency,
             totalBalance
         );
     }
 
     @Transactional
     public void deleteGroup(String groupId) {
-        if (!groupRepository.existsById(groupId)) {
-            throw new IllegalArgumentException("Group with ID " + groupId + " not found");
-        }
-        groupRepository.deleteById(groupId);
+        Group group = getGroup(groupId);
+        ledgerVersionService.bump(groupMembershipService.getMembership(groupId).memberIds().toArray(new String[0]));
+        splitRuleRepository.deleteByGroupId(groupId);
+        groupRepository.delete(group);
+        groupMembershipService.evict(groupId);
     }
 
     @Transactional
@@ -182,6 +298,7 @@ public class GroupService {
             group.setDescription(description);
         }
         
+        ledgerVersionService.bump(groupMembershipService.getMembership(groupId).memberIds().toArray(new String[0]));
         return groupRepository.save(group);
     }
     
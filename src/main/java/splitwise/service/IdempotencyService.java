@@ -0,0 +1,141 @@
+package splitwise.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import splitwise.exception.IdempotencyConflictException;
+import splitwise.model.IdempotencyRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * IdempotencyService - Makes POST endpoints safe to retry with an Idempotency-Key header
+ *
+ * The first request with a given key runs normally and its response is stored.
+ * A retry with the same key and the same body gets the stored response back
+ * (with an Idempotent-Replayed header) without running the request again.
+ *
+ * Keys are scoped per user and endpoint. A key reused with a different body, or sent again
+ * while the first request is still running, is rejected with 409 Conflict.
+ * Failed requests do not keep their key, so they can be retried.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-timeout-seconds:120}")
+    private long inProgressTimeoutSeconds;
+
+    /**
+     * Runs the action once per idempotency key.
+     *
+     * @param idempotencyKey The client key, or null to run the action without idempotency
+     * @param userId         The authenticated user
+     * @param endpoint       Name of the endpoint the key is scoped to
+     * @param request        The request body, used to detect a key reused for another request
+     * @param responseType   Body type of the response, to rebuild stored responses
+     * @param action         The request handling to protect
+     * @return The response of the action, or the stored response for a retry
+     */
+    public <T> ResponseEntity<T> execute(String idempotencyKey, String userId, String endpoint, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " cannot be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = sha256(userId + "\n" + endpoint + "\n" + idempotencyKey);
+        String requestHash = sha256(toJson(request));
+
+        IdempotencyRecord existing = idempotencyStore.reserve(key, requestHash, Duration.ofSeconds(inProgressTimeoutSeconds));
+        if (existing != null) {
+            return replay(existing, requestHash, responseType);
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyStore.release(key);
+            throw e;
+        }
+
+        idempotencyStore.complete(key, response.getStatusCode().value(), toJson(response.getBody()), Duration.ofHours(ttlHours));
+        return response;
+    }
+
+    /**
+     * Removes expired keys from the store.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpiredKeys() {
+        int purged = idempotencyStore.purgeExpired();
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(IdempotencyRecord record, String requestHash, Class<T> responseType) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException(HEADER + " was already used for a different request");
+        }
+        if (!record.isCompleted()) {
+            throw new IdempotencyConflictException("A request with this " + HEADER + " is still being processed");
+        }
+
+        try {
+            T body = record.getResponseBody() == null ? null : objectMapper.readValue(record.getResponseBody(), responseType);
+            return ResponseEntity.status(record.getStatusCode())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent request/response", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package splitwise.service;
+
+import splitwise.model.IdempotencyRecord;
+
+import java.time.Duration;
+
+/**
+ * Storage for idempotency keys. Implementations must make reserve atomic:
+ * of several concurrent callers with the same key, exactly one gets the reservation.
+ *
+ * Selected with the idempotency.store property: memory (default) or database.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Reserves a key for a new request.
+     *
+     * @return null if the caller now owns the key, otherwise the live record already holding it
+     */
+    IdempotencyRecord reserve(String key, String requestHash, Duration inProgressTtl);
+
+    /**
+     * Stores the response of a reserved key and extends its lifetime.
+     */
+    void complete(String key, int statusCode, String responseBody, Duration ttl);
+
+    /**
+     * Drops a reservation, e.g. when the request failed, so that a retry can run again.
+     */
+    void release(String key);
+
+    /**
+     * Removes expired keys.
+     *
+     * @return The number of keys removed
+     */
+    int purgeExpired();
+}
@@ -0,0 +1,75 @@
+package splitwise.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import splitwise.model.IdempotencyRecord;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory idempotency store, for single-instance deployments.
+ * Bounded LRU map: when full, the least recently used key is evicted even if not yet expired.
+ * Stored records are never modified: complete replaces the entry and reserve hands out copies,
+ * so a caller reading a record outside the lock never sees it change halfway.
+ */
+@Service
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Map<String, IdempotencyRecord> records;
+
+    public InMemoryIdempotencyStore(@Value("${idempotency.max-entries:100000}") int maxEntries) {
+        this.records = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized IdempotencyRecord reserve(String key, String requestHash, Duration inProgressTtl) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord existing = records.get(key);
+        if (existing != null && !existing.isExpired(now)) {
+            return copy(existing, existing.getExpiresAt());
+        }
+        records.put(key, new IdempotencyRecord(key, requestHash, now, now.plus(inProgressTtl)));
+        return null;
+    }
+
+    @Override
+    public synchronized void complete(String key, int statusCode, String responseBody, Duration ttl) {
+        IdempotencyRecord reserved = records.get(key);
+        if (reserved != null) {
+            IdempotencyRecord completed = copy(reserved, LocalDateTime.now().plus(ttl));
+            completed.setStatusCode(statusCode);
+            completed.setResponseBody(responseBody);
+            records.put(key, completed);
+        }
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        records.remove(key);
+    }
+
+    @Override
+    public synchronized int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int before = records.size();
+        records.values().removeIf(record -> record.isExpired(now));
+        return before - records.size();
+    }
+
+    private static IdempotencyRecord copy(IdempotencyRecord record, LocalDateTime expiresAt) {
+        IdempotencyRecord copy = new IdempotencyRecord(record.getKey(), record.getRequestHash(), record.getCreatedAt(), expiresAt);
+        copy.setStatusCode(record.getStatusCode());
+        copy.setResponseBody(record.getResponseBody());
+        return copy;
+    }
+}
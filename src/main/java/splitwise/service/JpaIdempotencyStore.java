@@ -0,0 +1,58 @@
+package splitwise.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import splitwise.exception.IdempotencyConflictException;
+import splitwise.model.IdempotencyRecord;
+import splitwise.repository.IdempotencyRecordRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Database-backed idempotency store, shared by all application instances.
+ * Reservation relies on the primary key of idempotency_keys: of two concurrent inserts, only one succeeds.
+ */
+@Service
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "database")
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Override
+    public IdempotencyRecord reserve(String key, String requestHash, Duration inProgressTtl) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // An expired key is free again
+        idempotencyRecordRepository.deleteIfExpired(key, now);
+
+        try {
+            idempotencyRecordRepository.insert(key, requestHash, now, now.plus(inProgressTtl));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // Key already taken, fall through to the existing record
+        }
+        return idempotencyRecordRepository.findById(key)
+                // Released by its owner in the meantime, let the client retry
+                .orElseThrow(() -> new IdempotencyConflictException(
+                        "A request with this Idempotency-Key is still being processed"));
+    }
+
+    @Override
+    public void complete(String key, int statusCode, String responseBody, Duration ttl) {
+        idempotencyRecordRepository.complete(key, statusCode, responseBody, LocalDateTime.now().plus(ttl));
+    }
+
+    @Override
+    public void release(String key) {
+        idempotencyRecordRepository.deleteByKey(key);
+    }
+
+    @Override
+    public int purgeExpired() {
+        return idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    }
+}
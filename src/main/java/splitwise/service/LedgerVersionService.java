@@ -0,0 +1,148 @@
+package splitwise.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import splitwise.event.ExpenseAddedEvent;
+import splitwise.event.ExpenseUpdatedEvent;
+import splitwise.event.ExpensesImportedEvent;
+import splitwise.model.Expense;
+import splitwise.model.User;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LedgerVersionService - Tracks a per-user ledger version
+ *
+ * The version of a user is bumped whenever something that feeds their dashboard or
+ * balances changes: a UserPair involving them, a membership change in one of their
+ * groups, or an expense they take part in.
+ *
+ * The version is exposed to clients as an ETag so that polling endpoints can answer
+ * If-None-Match with 304 Not Modified without recomputing anything.
+ *
+ * Versions are kept in memory and bumped only after the surrounding transaction commits,
+ * so a client can never observe a new version paired with uncommitted data. The ETag also
+ * carries an epoch generated at startup, which invalidates all ETags after a restart.
+ */
+@Service
+public class LedgerVersionService {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Event listener for expense added events.
+     * Bumps the version of the payer and every participant of the expense.
+     */
+    @EventListener
+    public void handleExpenseAdded(ExpenseAddedEvent event) {
+        bumpExpenseUsers(event.getExpense());
+    }
+
+    /**
+     * Event listener for expense updated events.
+     * Bumps the version of the payer and every participant of the expense.
+     */
+    @EventListener
+    public void handleExpenseUpdated(ExpenseUpdatedEvent event) {
+        bumpExpenseUsers(event.getExpense());
+    }
+
+    /**
+     * Event listener for bulk imports.
+     * Bumps the version of every payer and participant of the imported expenses.
+     */
+    @EventListener
+    public void handleExpensesImported(ExpensesImportedEvent event) {
+        for (Expense expense : event.getExpenses()) {
+            bumpExpenseUsers(expense);
+        }
+    }
+
+    /**
+     * Returns the current ledger version of a user (0 if nothing changed since startup).
+     */
+    public long getVersion(String userId) {
+        AtomicLong version = versions.get(userId);
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * Returns the ETag representing the current ledger version of a user.
+     * The ETag must be read before computing the response it is attached to.
+     */
+    public String getETag(String userId) {
+        return "\"" + epoch + "-" + Long.toString(getVersion(userId), 36) + "\"";
+    }
+
+    /**
+     * Bumps the ledger version of the given users once the current transaction commits,
+     * or immediately if no transaction is active.
+     */
+    public void bump(String... userIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId != null) {
+                ids.add(userId);
+            }
+        }
+        bumpAfterCommit(ids);
+    }
+
+    /**
+     * Bumps the ledger version of all the given users.
+     */
+    public void bumpUsers(Collection<User> users) {
+        if (users == null) {
+            return;
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (User user : users) {
+            ids.add(user.getUserId());
+        }
+        bumpAfterCommit(ids);
+    }
+
+    private void bumpExpenseUsers(Expense expense) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (expense.getPayer() != null) {
+            ids.add(expense.getPayer().getUserId());
+        }
+        if (expense.getShares() != null) {
+            for (User participant : expense.getShares().keySet()) {
+                ids.add(participant.getUserId());
+            }
+        }
+        bumpAfterCommit(ids);
+    }
+
+    private void bumpAfterCommit(Set<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(userIds);
+                }
+            });
+        } else {
+            increment(userIds);
+        }
+    }
+
+    private void increment(Set<String> userIds) {
+        for (String userId : userIds) {
+            versions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+}
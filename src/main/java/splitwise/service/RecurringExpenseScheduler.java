@@ -0,0 +1,162 @@
+package splitwise.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import splitwise.event.RecurringExpenseChangedEvent;
+import splitwise.repository.RecurringExpenseRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecurringExpenseScheduler - Wakes up when recurring expenses are due instead of polling
+ *
+ * - Templates due within the next window (recurring-expenses.window-minutes) are loaded into a
+ *   DelayQueue ordered by due time; the rest stay in the database until a later window
+ * - A single thread sleeps until the earliest due time, then takes every due template
+ *   (up to recurring-expenses.batch-size) and hands them to RecurringExpenseService in one batch
+ * - Created, deleted and advanced templates are (re)scheduled right away
+ *
+ * Loading a window also picks up templates that became due while the application was down,
+ * so missed occurrences are caught up at startup.
+ */
+@Component
+public class RecurringExpenseScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringExpenseScheduler.class);
+
+    private static final long ERROR_BACKOFF_MS = 5_000;
+
+    @Value("${recurring-expenses.enabled:true}")
+    private boolean enabled;
+
+    @Value("${recurring-expenses.batch-size:50}")
+    private int batchSize;
+
+    @Value("${recurring-expenses.window-minutes:60}")
+    private int windowMinutes;
+
+    @Autowired
+    private RecurringExpenseService recurringExpenseService;
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    private final DelayQueue<DueTemplate> queue = new DelayQueue<>();
+
+    // Current due time of each queued template; queue entries that no longer match are stale
+    private final Map<String, LocalDateTime> scheduled = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime windowEnd = LocalDateTime.MIN;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Recurring expense scheduler is disabled");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "recurring-expenses");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleRecurringExpenseChanged(RecurringExpenseChangedEvent event) {
+        schedule(event.getTemplateId(), event.getNextRunAt());
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (!LocalDateTime.now().isBefore(windowEnd)) {
+                    loadWindow();
+                }
+                long untilWindowEnd = Math.max(1, Duration.between(LocalDateTime.now(), windowEnd).toMillis());
+                DueTemplate first = queue.poll(untilWindowEnd, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<String> batch = new ArrayList<>();
+                for (DueTemplate due = first; due != null; due = batch.size() < batchSize ? queue.poll() : null) {
+                    if (scheduled.remove(due.templateId, due.runAt)) {
+                        batch.add(due.templateId);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    recurringExpenseService.materialize(batch).forEach(this::schedule);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Templates of a failed batch stay due in the database and come back with the next window
+                logger.error("Recurring expense run failed: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void loadWindow() {
+        LocalDateTime end = LocalDateTime.now().plusMinutes(windowMinutes);
+        windowEnd = end;
+        List<Object[]> due = recurringExpenseRepository.findDueBefore(end);
+        for (Object[] row : due) {
+            schedule((String) row[0], (LocalDateTime) row[1]);
+        }
+        logger.debug("Recurring expense window until {}: {} templates due", end, due.size());
+    }
+
+    private void schedule(String templateId, LocalDateTime runAt) {
+        if (runAt == null) {
+            scheduled.remove(templateId);
+        } else if (runAt.isBefore(windowEnd) && !runAt.equals(scheduled.put(templateId, runAt))) {
+            queue.add(new DueTemplate(templateId, runAt));
+        }
+    }
+
+    private record DueTemplate(String templateId, LocalDateTime runAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), runAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return runAt.compareTo(((DueTemplate) other).runAt);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package splitwise.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.dto.CreateRecurringExpenseRequest;
+import splitwise.dto.RecurringExpenseResponse;
+import splitwise.event.RecurringExpenseChangedEvent;
+import splitwise.model.Expense;
+import splitwise.model.RecurringExpense;
+import splitwise.model.RecurringOccurrence;
+import splitwise.repository.RecurringExpenseRepository;
+import splitwise.repository.RecurringOccurrenceRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * RecurringExpenseService - Recurring expense templates and the creation of their occurrences
+ *
+ * A template holds an expense request and a cron rule. Due occurrences are created by
+ * RecurringExpenseScheduler through this service, as the template owner, via ExpenseService.
+ *
+ * Exactly once per occurrence:
+ * - the expense, its recurring_occurrences row and the advanced nextRunAt commit together
+ * - the occurrence row is unique per (template, scheduled time) and templates are versioned,
+ *   so a concurrent attempt (another instance) rolls back instead of creating a duplicate
+ *
+ * After downtime, missed occurrences are created on the next run, up to
+ * recurring-expenses.max-catch-up per template; older ones are skipped. Each expense is
+ * dated at its scheduled time, not at the time it was created.
+ *
+ * Occurrences that are rejected (IllegalArgumentException, e.g. a deleted participant) are
+ * skipped with the error recorded; any other failure leaves them due for the next window.
+ */
+@Service
+public class RecurringExpenseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringExpenseService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Value("${recurring-expenses.max-catch-up:12}")
+    private int maxCatchUp;
+
+    @Autowired
+    private RecurringExpenseRepository recurringExpenseRepository;
+
+    @Autowired
+    private RecurringOccurrenceRepository occurrenceRepository;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Creates a recurring expense owned by the given user.
+     *
+     * @throws IllegalArgumentException if the cron rule or the expense request is invalid,
+     *                                  or if the schedule has no occurrence
+     */
+    @Transactional
+    public RecurringExpense createRecurringExpense(CreateRecurringExpenseRequest request, String ownerId) {
+        CronExpression cron = parseCron(request.getCron());
+
+        expenseService.validateSplitDetails(request.getSplitType(), request.getSplitDetails(), request.getParticipantIds());
+        userService.getUsers(expenseService.collectReferencedUserIds(
+                request.getPayerId(), request.getParticipantIds(), request.getSplitDetails()));
+        if (request.getGroupId() != null) {
+            groupService.getGroup(request.getGroupId());
+        } else if (!ownerId.equals(request.getPayerId()) && !request.getParticipantIds().contains(ownerId)) {
+            throw new IllegalArgumentException("Unauthorized: You can only create expenses where you are either the payer or a participant");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = request.getStartAt() != null && request.getStartAt().isAfter(now) ? request.getStartAt() : now;
+        LocalDateTime firstRun = cron.next(start.minusNanos(1));
+        if (firstRun == null || (request.getEndAt() != null && firstRun.isAfter(request.getEndAt()))) {
+            throw new IllegalArgumentException("The schedule has no occurrence before its end");
+        }
+
+        RecurringExpense template = new RecurringExpense();
+        template.setId(UUID.randomUUID().toString());
+        template.setOwnerId(ownerId);
+        template.setTitle(request.getTitle());
+        template.setDescription(request.getDescription());
+        template.setAmount(request.getAmount());
+        template.setCurrency(currencyService.resolveConvertible(request.getCurrency()));
+        template.setPayerId(request.getPayerId());
+        template.setGroupId(request.getGroupId());
+        template.setParticipantIds(new ArrayList<>(request.getParticipantIds()));
+        template.setSplitType(request.getSplitType());
+        template.setSplitDetails(request.getSplitDetails());
+        template.setCron(request.getCron().trim());
+        template.setNextRunAt(firstRun);
+        template.setEndAt(request.getEndAt());
+        template.setActive(true);
+        template.setCreatedAt(now);
+
+        recurringExpenseRepository.save(template);
+        eventPublisher.publishEvent(new RecurringExpenseChangedEvent(this, template.getId(), firstRun));
+        return template;
+    }
+
+    public List<RecurringExpense> getRecurringExpenses(String ownerId) {
+        return recurringExpenseRepository.findByOwnerIdOrderByCreatedAt(ownerId);
+    }
+
+    public RecurringExpense getRecurringExpense(String id, String ownerId) {
+        return recurringExpenseRepository.findById(id)
+                .filter(template -> template.getOwnerId().equals(ownerId))
+                .orElseThrow(() -> new IllegalArgumentException("Recurring expense with ID " + id + " not found"));
+    }
+
+    /**
+     * Deletes a recurring expense. Expenses already created are kept.
+     */
+    @Transactional
+    public void deleteRecurringExpense(String id, String ownerId) {
+        RecurringExpense template = getRecurringExpense(id, ownerId);
+        recurringExpenseRepository.delete(template);
+        eventPublisher.publishEvent(new RecurringExpenseChangedEvent(this, id, null));
+    }
+
+    /**
+     * Creates the due occurrences of a batch of templates.
+     * The batch runs in one transaction; if it fails, each template is retried in its own
+     * transaction so one failing template never blocks the others.
+     *
+     * @return The next run time of each template, null when it has no more occurrences
+     */
+    public Map<String, LocalDateTime> materialize(List<String> templateIds) {
+        LocalDateTime now = LocalDateTime.now();
+        if (templateIds.size() > 1) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Map<String, LocalDateTime> nextRuns = new LinkedHashMap<>();
+                    for (String templateId : templateIds) {
+                        nextRuns.put(templateId, materializeTemplate(templateId, now));
+                    }
+                    return nextRuns;
+                });
+            } catch (RuntimeException e) {
+                logger.debug("Recurring batch of {} rolled back, retrying one by one: {}", templateIds.size(), e.getMessage());
+            }
+        }
+
+        Map<String, LocalDateTime> nextRuns = new LinkedHashMap<>();
+        for (String templateId : templateIds) {
+            nextRuns.put(templateId, materializeAlone(templateId, now));
+        }
+        return nextRuns;
+    }
+
+    public RecurringExpenseResponse toResponse(RecurringExpense template) {
+        RecurringExpenseResponse response = new RecurringExpenseResponse();
+        response.setId(template.getId());
+        response.setTitle(template.getTitle());
+        response.setDescription(template.getDescription());
+        response.setAmount(template.getAmount());
+        response.setCurrency(template.getCurrency());
+        response.setPayerId(template.getPayerId());
+        response.setGroupId(template.getGroupId());
+        response.setParticipantIds(template.getParticipantIds());
+        response.setSplitType(template.getSplitType());
+        response.setSplitDetails(template.getSplitDetails());
+        response.setCron(template.getCron());
+        response.setNextRunAt(template.getNextRunAt());
+        response.setEndAt(template.getEndAt());
+        response.setLastRunAt(template.getLastRunAt());
+        response.setOccurrenceCount(template.getOccurrenceCount());
+        response.setLastError(template.getLastError());
+        response.setActive(template.isActive());
+        response.setCreatedAt(template.getCreatedAt());
+        return response;
+    }
+
+    private LocalDateTime materializeAlone(String templateId, LocalDateTime now) {
+        try {
+            return transactionTemplate.execute(status -> materializeTemplate(templateId, now));
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // Materialized concurrently (e.g. by another instance), continue from its state
+            return transactionTemplate.execute(status -> recurringExpenseRepository.findById(templateId)
+                    .filter(RecurringExpense::isActive)
+                    .map(RecurringExpense::getNextRunAt)
+                    .orElse(null));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Recurring expense {} could not be created: {}", templateId, e.getMessage());
+            return transactionTemplate.execute(status -> skipDueOccurrences(templateId, now, e.getMessage()));
+        } catch (RuntimeException e) {
+            // Possibly transient (e.g. database unavailable): the template stays due and is
+            // picked up again when the scheduler loads its next window
+            logger.warn("Recurring expense {} failed, retrying with the next window: {}", templateId, e.getMessage());
+            try {
+                transactionTemplate.executeWithoutResult(status -> recordError(templateId, e.getMessage()));
+            } catch (RuntimeException recordFailure) {
+                logger.debug("Could not record the error of recurring expense {}: {}", templateId, recordFailure.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private LocalDateTime materializeTemplate(String templateId, LocalDateTime now) {
+        RecurringExpense template = recurringExpenseRepository.findById(templateId).orElse(null);
+        if (template == null || !template.isActive() || template.getNextRunAt() == null) {
+            return null;
+        }
+
+        CronExpression cron = parseCron(template.getCron());
+        int created = 0;
+        while (template.isActive() && !template.getNextRunAt().isAfter(now)) {
+            if (created >= maxCatchUp) {
+                logger.warn("Recurring expense {} missed more than {} occurrences, skipping to the next one", templateId, maxCatchUp);
+                advance(template, cron, now);
+                break;
+            }
+            LocalDateTime scheduledAt = template.getNextRunAt();
+            if (!occurrenceRepository.existsByTemplateIdAndScheduledAt(templateId, scheduledAt)) {
+                Expense expense = createAs(template, scheduledAt);
+                occurrenceRepository.save(new RecurringOccurrence(templateId, scheduledAt, expense.getId()));
+                template.setOccurrenceCount(template.getOccurrenceCount() + 1);
+                template.setLastRunAt(now);
+                template.setLastError(null);
+            }
+            created++;
+            advance(template, cron, scheduledAt);
+        }
+        return template.isActive() ? template.getNextRunAt() : null;
+    }
+
+    // The occurrences due now cannot be created (e.g. a participant was deleted): record why and move on
+    private LocalDateTime skipDueOccurrences(String templateId, LocalDateTime now, String error) {
+        RecurringExpense template = recurringExpenseRepository.findById(templateId).orElse(null);
+        if (template == null || !template.isActive()) {
+            return null;
+        }
+        template.setLastError(truncateError(error));
+        advance(template, parseCron(template.getCron()), now);
+        return template.isActive() ? template.getNextRunAt() : null;
+    }
+
+    // Records the last error without advancing, so the due occurrences are retried
+    private void recordError(String templateId, String error) {
+        recurringExpenseRepository.findById(templateId)
+                .filter(RecurringExpense::isActive)
+                .ifPresent(template -> template.setLastError(truncateError(error)));
+    }
+
+    private String truncateError(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private void advance(RecurringExpense template, CronExpression cron, LocalDateTime after) {
+        LocalDateTime next = cron.next(after);
+        if (next == null || (template.getEndAt() != null && next.isAfter(template.getEndAt()))) {
+            template.setActive(false);
+            template.setNextRunAt(null);
+        } else {
+            template.setNextRunAt(next);
+        }
+    }
+
+    private Expense createAs(RecurringExpense template, LocalDateTime scheduledAt) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(template.getOwnerId(), null, List.of()));
+        SecurityContextHolder.setContext(context);
+        try {
+            if (template.getGroupId() != null) {
+                return expenseService.addGroupExpense(template.getTitle(), template.getDescription(), template.getAmount(),
+                        template.getPayerId(), template.getGroupId(), template.getParticipantIds(),
+                        template.getSplitType(), template.getSplitDetails(), false, template.getCurrency(), scheduledAt);
+            }
+            return expenseService.addExpense(template.getTitle(), template.getDescription(), template.getAmount(),
+                    template.getPayerId(), template.getParticipantIds(),
+                    template.getSplitType(), template.getSplitDetails(), false, template.getCurrency(), scheduledAt);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Accepts Spring 6-field cron expressions and 5-field Unix ones (seconds default to 0)
+    private CronExpression parseCron(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron expression is required");
+        }
+        String trimmed = expression.trim();
+        if (trimmed.split("\\s+").length == 5) {
+            trimmed = "0 " + trimmed;
+        }
+        try {
+            return CronExpression.parse(trimmed);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cron expression '" + expression + "': " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package splitwise.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.util.SharesCodec;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SharesStorageMigration - Moves expense shares from the legacy expense_shares table
+ * into the packed expenses.shares_packed column
+ *
+ * Runs once all beans are created and before the web server accepts requests, so no request
+ * reads an expense whose shares are not packed yet. It only does work while expense_shares still
+ * has rows. Expenses are converted in chunks, one transaction per chunk, and their legacy rows
+ * are deleted in the same transaction, so the migration can be interrupted and resumed and the
+ * foreign keys of expense_shares never block deleting or archiving a migrated expense. The empty
+ * legacy table is dropped afterwards only when shares-migration.drop-legacy-table is enabled.
+ */
+@Component
+public class SharesStorageMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharesStorageMigration.class);
+
+    private static final String LEGACY_TABLE = "expense_shares";
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${shares-migration.drop-legacy-table:false}")
+    private boolean dropLegacyTable;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!legacyTableExists()) {
+            return;
+        }
+
+        int migrated = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> migrateChunk());
+            migrated += chunk;
+        } while (chunk == CHUNK_SIZE);
+
+        if (migrated > 0) {
+            logger.info("Migrated shares of {} expenses to packed storage", migrated);
+        }
+
+        if (dropLegacyTable) {
+            jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+            logger.info("Dropped legacy table {}", LEGACY_TABLE);
+        } else {
+            logger.info("Legacy table {} is empty and no longer used, it can be dropped", LEGACY_TABLE);
+        }
+    }
+
+    // Packs the shares of a chunk of expenses that still have legacy rows, then deletes those rows:
+    // expense_shares keeps its foreign keys to expenses and users, and nothing else removes its rows
+    private int migrateChunk() {
+        List<String> expenseIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT expense_id FROM " + LEGACY_TABLE +
+                " ORDER BY expense_id LIMIT " + CHUNK_SIZE, String.class);
+        if (expenseIds.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Map<String, Double>> sharesByExpense = new LinkedHashMap<>();
+        namedJdbcTemplate.query(
+                "SELECT expense_id, user_id, share_amount FROM " + LEGACY_TABLE +
+                " WHERE expense_id IN (:ids) ORDER BY expense_id, user_id",
+                new MapSqlParameterSource("ids", expenseIds),
+                (ResultSet rs) -> {
+                    sharesByExpense.computeIfAbsent(rs.getString("expense_id"), id -> new LinkedHashMap<>())
+                            .put(rs.getString("user_id"), rs.getDouble("share_amount"));
+                });
+
+        // Expenses packed by an earlier run keep their packed shares, only their legacy rows go
+        List<Object[]> updates = new ArrayList<>(sharesByExpense.size());
+        sharesByExpense.forEach((expenseId, shares) -> updates.add(new Object[]{SharesCodec.encode(shares), expenseId}));
+        jdbcTemplate.batchUpdate("UPDATE expenses SET shares_packed = ? WHERE id = ? AND shares_packed IS NULL", updates);
+        namedJdbcTemplate.update("DELETE FROM " + LEGACY_TABLE + " WHERE expense_id IN (:ids)",
+                new MapSqlParameterSource("ids", expenseIds));
+        return expenseIds.size();
+    }
+
+    private boolean legacyTableExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            for (String name : new String[]{LEGACY_TABLE, LEGACY_TABLE.toUpperCase()}) {
+                try (ResultSet tables = connection.getMetaData().getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                } catch (SQLException e) {
+                    logger.warn("Could not check for legacy table {}: {}", LEGACY_TABLE, e.getMessage());
+                    return false;
+                }
+            }
+            return false;
+        }));
+    }
+}
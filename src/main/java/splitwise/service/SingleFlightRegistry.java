@@ -0,0 +1,46 @@
+package splitwise.service;
+
+import org.springframework.stereotype.Service;
+import splitwise.util.SingleFlight;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SingleFlightRegistry - Creates and tracks the single-flight layers used by read services
+ *
+ * Expensive read paths (settlements, group balances) wrap their computation in a named
+ * SingleFlight so that identical concurrent requests share one computation.
+ * The registry exposes per-layer counters of computations run and computations saved.
+ */
+@Service
+public class SingleFlightRegistry {
+
+    private final Map<String, SingleFlight<?, ?>> singleFlights = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the single-flight layer with the given name, creating it on first use.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> get(String name) {
+        return (SingleFlight<K, V>) singleFlights.computeIfAbsent(name, SingleFlight::new);
+    }
+
+    /**
+     * Returns the counters of every registered single-flight layer.
+     *
+     * @return Map of layer name to its executions, coalesced (saved) and in-flight counts
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        singleFlights.forEach((name, singleFlight) -> {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("executions", singleFlight.getExecutions());
+            counters.put("coalesced", singleFlight.getCoalesced());
+            counters.put("inFlight", (long) singleFlight.getInFlight());
+            stats.put(name, counters);
+        });
+        return stats;
+    }
+}
@@ -0,0 +1,348 @@
+package splitwise.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.dto.GroupSpend;
+import splitwise.dto.MonthlySpend;
+import splitwise.event.ExpenseAddedEvent;
+import splitwise.event.ExpenseDeletedEvent;
+import splitwise.event.ExpenseUpdatedEvent;
+import splitwise.event.ExpensesImportedEvent;
+import splitwise.model.Expense;
+import splitwise.model.Group;
+import splitwise.model.SpendRollup;
+import splitwise.model.User;
+import splitwise.repository.ArchivedExpenseRepository;
+import splitwise.repository.ExpenseRepository;
+import splitwise.repository.GroupRepository;
+import splitwise.repository.SpendRollupRepository;
+import splitwise.util.SharesCodec;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * SpendRollupService - Maintains monthly spend rollups and answers analytics from them
+ *
+ * spend_rollups holds, per (user, group, month), what the user paid, what they owed and
+ * how many expenses they were part of (see SpendRollup). Rows are maintained in the same
+ * transaction as the expense:
+ * - added and imported expenses are added
+ * - edited expenses are reversed by ExpenseService before the edit, then the new version is added
+ * - deleted expenses are subtracted
+ * Archiving does not touch rollups, they always cover the whole history.
+ * Amounts are in the base currency, converted with the rate of each expense's date.
+ *
+ * Updates are applied in place with SQL increments, in a fixed key order, so concurrent expenses
+ * neither lose updates nor deadlock. A missing row is first created empty in its own transaction.
+ *
+ * Analytics read one row per (group, month) bucket, whatever the number of expenses.
+ * The rollups are rebuilt from all expenses at startup when empty, or on demand.
+ */
+@Service
+public class SpendRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpendRollupService.class);
+
+    private static final int DEFAULT_MONTHS = 12;
+
+    private static final int MAX_MONTHS = 120;
+
+    @Autowired
+    private SpendRollupRepository spendRollupRepository;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ArchivedExpenseRepository archivedExpenseRepository;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate newTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Event listener for expense added events.
+     */
+    @EventListener
+    public void handleExpenseAdded(ExpenseAddedEvent event) {
+        apply(List.of(event.getExpense()), 1);
+    }
+
+    /**
+     * Event listener for expense updated events.
+     * The previous version was reversed by ExpenseService before the update.
+     */
+    @EventListener
+    public void handleExpenseUpdated(ExpenseUpdatedEvent event) {
+        apply(List.of(event.getExpense()), 1);
+    }
+
+    /**
+     * Event listener for bulk imports.
+     */
+    @EventListener
+    public void handleExpensesImported(ExpensesImportedEvent event) {
+        apply(event.getExpenses(), 1);
+    }
+
+    /**
+     * Event listener for expense deleted events.
+     */
+    @EventListener
+    public void handleExpenseDeleted(ExpenseDeletedEvent event) {
+        apply(List.of(event.getExpense()), -1);
+    }
+
+    /**
+     * Subtracts an expense from the rollups, before it is edited.
+     */
+    public void reverse(Expense expense) {
+        apply(List.of(expense), -1);
+    }
+
+    /**
+     * Rebuilds the rollups on startup if they are empty while expenses exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (spendRollupRepository.count() == 0
+                && (expenseRepository.count() > 0 || archivedExpenseRepository.count() > 0)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes all rollups from the hot and archived expenses, in one transaction.
+     * Expenses written while the rebuild runs may be missed, run it when writes are quiet.
+     *
+     * @return Number of expenses read and rollup rows written
+     */
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = transactionTemplate.execute(status -> {
+            Map<RollupKey, double[]> totals = new HashMap<>();
+            long expenses = 0;
+            try (Stream<Object[]> rows = archivedExpenseRepository.streamRollupRows()) {
+                expenses += aggregate(rows, totals);
+            }
+            try (Stream<Object[]> rows = expenseRepository.streamRollupRows()) {
+                expenses += aggregate(rows, totals);
+            }
+
+            jdbcTemplate.update("DELETE FROM spend_rollups");
+            List<Object[]> inserts = new ArrayList<>(totals.size());
+            totals.forEach((key, total) -> inserts.add(new Object[]{
+                    key.userId, key.groupKey, key.month, total[0], total[1], (long) total[2]}));
+            jdbcTemplate.batchUpdate("INSERT INTO spend_rollups (user_id, group_key, month_key, paid, owed, expense_count) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", inserts);
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("expenses", expenses);
+            stats.put("rollups", inserts.size());
+            return stats;
+        });
+        logger.info("Spend rollups rebuilt in {} ms: {}", System.currentTimeMillis() - start, result);
+        return result;
+    }
+
+    /**
+     * Spend of a user per month, oldest first, one entry per month of the range (zeros included).
+     *
+     * @param userId  The user
+     * @param groupId Restricts to one group when set
+     * @param from    First month (yyyy-MM), defaults to 11 months before "to"
+     * @param to      Last month (yyyy-MM), defaults to the current month
+     */
+    public List<MonthlySpend> getMonthlySpend(String userId, String groupId, String from, String to) {
+        YearMonth[] range = resolveRange(from, to);
+        int fromMonth = toMonthKey(range[0]);
+        int toMonth = toMonthKey(range[1]);
+        List<SpendRollup> rollups = groupId != null
+                ? spendRollupRepository.findByUserIdAndGroupKeyAndMonthBetween(userId, groupId, fromMonth, toMonth)
+                : spendRollupRepository.findByUserIdAndMonthBetween(userId, fromMonth, toMonth);
+
+        Map<Integer, MonthlySpend> byMonth = new LinkedHashMap<>();
+        for (YearMonth month = range[0]; !month.isAfter(range[1]); month = month.plusMonths(1)) {
+            byMonth.put(toMonthKey(month), new MonthlySpend(month.toString(), 0.0, 0.0, 0));
+        }
+        for (SpendRollup rollup : rollups) {
+            MonthlySpend spend = byMonth.get(rollup.getMonth());
+            spend.setPaid(spend.getPaid() + rollup.getPaid());
+            spend.setOwed(spend.getOwed() + rollup.getOwed());
+            spend.setExpenseCount(spend.getExpenseCount() + rollup.getExpenseCount());
+        }
+        return new ArrayList<>(byMonth.values());
+    }
+
+    /**
+     * Spend of a user per group over a range of months, largest share first.
+     * Expenses outside any group are reported with a null groupId.
+     */
+    public List<GroupSpend> getGroupSpend(String userId, String from, String to) {
+        YearMonth[] range = resolveRange(from, to);
+        List<SpendRollup> rollups = spendRollupRepository.findByUserIdAndMonthBetween(
+                userId, toMonthKey(range[0]), toMonthKey(range[1]));
+
+        Map<String, GroupSpend> byGroup = new LinkedHashMap<>();
+        for (SpendRollup rollup : rollups) {
+            String groupId = SpendRollup.NO_GROUP.equals(rollup.getGroupKey()) ? null : rollup.getGroupKey();
+            GroupSpend spend = byGroup.computeIfAbsent(rollup.getGroupKey(),
+                    key -> new GroupSpend(groupId, null, 0.0, 0.0, 0));
+            spend.setPaid(spend.getPaid() + rollup.getPaid());
+            spend.setOwed(spend.getOwed() + rollup.getOwed());
+            spend.setExpenseCount(spend.getExpenseCount() + rollup.getExpenseCount());
+        }
+
+        for (Group group : groupRepository.findAllById(byGroup.keySet())) {
+            byGroup.get(group.getGroupId()).setGroupName(group.getName());
+        }
+
+        List<GroupSpend> result = new ArrayList<>(byGroup.values());
+        result.sort((a, b) -> Double.compare(b.getOwed(), a.getOwed()));
+        return result;
+    }
+
+    private void apply(Collection<Expense> expenses, int sign) {
+        // Sorted so that concurrent transactions lock rollup rows in the same order
+        Map<RollupKey, double[]> deltas = new TreeMap<>();
+        for (Expense expense : expenses) {
+            if (Boolean.TRUE.equals(expense.getIsSettleUp()) || expense.getPayer() == null) {
+                continue;
+            }
+            Map<String, Double> shares = new HashMap<>();
+            if (expense.getShares() != null) {
+                for (Map.Entry<User, Double> share : expense.getShares().entrySet()) {
+                    shares.merge(share.getKey().getUserId(), share.getValue(), Double::sum);
+                }
+            }
+            add(deltas, expense.getPayer().getUserId(), expense.getGroup() != null ? expense.getGroup().getGroupId() : null,
+                    expense.getTimestamp(), expense.getCurrency(), expense.getAmount(), shares, sign);
+        }
+
+        deltas.forEach((key, delta) -> {
+            if (spendRollupRepository.addToRollup(key.userId, key.groupKey, key.month, delta[0], delta[1], (long) delta[2]) == 0) {
+                createEmpty(key);
+                spendRollupRepository.addToRollup(key.userId, key.groupKey, key.month, delta[0], delta[1], (long) delta[2]);
+            }
+        });
+    }
+
+    // Committed on its own so the row is visible to (and cannot clash with) concurrent transactions
+    private void createEmpty(RollupKey key) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status ->
+                    spendRollupRepository.insertEmpty(key.userId, key.groupKey, key.month));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently
+        }
+    }
+
+    // Row layout of ExpenseRepository.streamRollupRows
+    private long aggregate(Stream<Object[]> rows, Map<RollupKey, double[]> totals) {
+        long count = 0;
+        for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+            if (Boolean.TRUE.equals(row[4])) {
+                continue;
+            }
+            Map<String, Double> shares = row[5] == null ? Map.of() : SharesCodec.decode((byte[]) row[5]);
+            add(totals, (String) row[0], (String) row[1], (LocalDateTime) row[2], (String) row[6],
+                    ((Number) row[3]).doubleValue(), shares, 1);
+            count++;
+        }
+        return count;
+    }
+
+    // Adds one expense to per-key [paid, owed, count] totals, in the base currency at the rate of the expense date
+    private void add(Map<RollupKey, double[]> totals, String payerId, String groupId, LocalDateTime timestamp,
+                     String currency, double amount, Map<String, Double> shares, int sign) {
+        String groupKey = groupId != null ? groupId : SpendRollup.NO_GROUP;
+        int month = toMonthKey(YearMonth.from(timestamp));
+        double rate = currencyService.convert(1.0, currency, currencyService.getBaseCurrency(), timestamp.toLocalDate());
+
+        double[] payerTotal = totals.computeIfAbsent(new RollupKey(payerId, groupKey, month), key -> new double[3]);
+        payerTotal[0] += sign * amount * rate;
+        payerTotal[2] += sign;
+        for (Map.Entry<String, Double> share : shares.entrySet()) {
+            double[] total = totals.computeIfAbsent(new RollupKey(share.getKey(), groupKey, month), key -> new double[3]);
+            total[1] += sign * share.getValue() * rate;
+            if (!share.getKey().equals(payerId)) {
+                total[2] += sign;
+            }
+        }
+    }
+
+    private YearMonth[] resolveRange(String from, String to) {
+        YearMonth end = to != null ? parseMonth(to) : YearMonth.now();
+        YearMonth start = from != null ? parseMonth(from) : end.minusMonths(DEFAULT_MONTHS - 1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (start.plusMonths(MAX_MONTHS).isBefore(end.plusMonths(1))) {
+            throw new IllegalArgumentException("Range cannot be longer than " + MAX_MONTHS + " months");
+        }
+        return new YearMonth[]{start, end};
+    }
+
+    private YearMonth parseMonth(String month) {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid month: " + month + ". Use yyyy-MM");
+        }
+    }
+
+    private static int toMonthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private record RollupKey(String userId, String groupKey, int month) implements Comparable<RollupKey> {
+        @Override
+        public int compareTo(RollupKey other) {
+            int byUser = userId.compareTo(other.userId);
+            if (byUser != 0) {
+                return byUser;
+            }
+            int byGroup = groupKey.compareTo(other.groupKey);
+            return byGroup != 0 ? byGroup : Integer.compare(month, other.month);
+        }
+    }
+}
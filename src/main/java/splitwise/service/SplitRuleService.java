@@ -0,0 +1,127 @@
+package splitwise.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import splitwise.dto.CreateSplitRuleRequest;
+import splitwise.model.GroupSplitRule;
+import splitwise.repository.GroupSplitRuleRepository;
+import splitwise.util.Formula;
+import splitwise.util.TransactionalCache;
+import splitwise.util.impl.FormulaSplit;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SplitRuleService - Custom split rules registered by groups
+ *
+ * - Formulas are compiled when a rule is registered, so invalid ones are rejected up front
+ * - Compiled rules are cached per group and reused by every CUSTOM_RULE_SPLIT expense;
+ *   a group's entry is dropped when one of its rules changes
+ *
+ * The cache is local rather than a CacheManager cache: compiled evaluators are not serializable.
+ */
+@Service
+public class SplitRuleService {
+
+    @Autowired
+    private GroupSplitRuleRepository ruleRepository;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private GroupMembershipService groupMembershipService;
+
+    // Group ID -> rule name -> compiled rule
+    private final Map<String, Map<String, FormulaSplit>> compiledRules = new ConcurrentHashMap<>();
+
+    private final TransactionalCache<String, Map<String, FormulaSplit>> rulesCache =
+            new TransactionalCache<>(compiledRules::get, compiledRules::put, compiledRules::remove);
+
+    /**
+     * Registers a rule for the group.
+     *
+     * @throws IllegalArgumentException if the caller is not a group member, the name is taken
+     *                                  or the formula is invalid
+     */
+    @Transactional
+    public GroupSplitRule createRule(String groupId, CreateSplitRuleRequest request, String currentUserId) {
+        requireMember(groupId, currentUserId);
+
+        String name = request.getName().trim();
+        if (ruleRepository.findByGroupIdAndName(groupId, name).isPresent()) {
+            throw new IllegalArgumentException("Split rule '" + name + "' already exists in this group");
+        }
+        Formula formula = Formula.compile(request.getFormula().trim());
+        if (request.getVariables() != null) {
+            for (String variable : request.getVariables().keySet()) {
+                if (!formula.getVariables().contains(variable)) {
+                    throw new IllegalArgumentException("Variable '" + variable + "' is not used by the formula");
+                }
+            }
+        }
+
+        GroupSplitRule rule = new GroupSplitRule();
+        rule.setId(UUID.randomUUID().toString());
+        rule.setGroupId(groupId);
+        rule.setName(name);
+        rule.setFormula(formula.getSource());
+        rule.setVariables(request.getVariables());
+        rule.setCreatedBy(currentUserId);
+        rule.setCreatedAt(LocalDateTime.now());
+        ruleRepository.save(rule);
+
+        rulesCache.invalidate(groupId);
+        return rule;
+    }
+
+    public List<GroupSplitRule> getRules(String groupId) {
+        groupService.getGroup(groupId);
+        return ruleRepository.findByGroupIdOrderByName(groupId);
+    }
+
+    @Transactional
+    public void deleteRule(String groupId, String name, String currentUserId) {
+        requireMember(groupId, currentUserId);
+        GroupSplitRule rule = ruleRepository.findByGroupIdAndName(groupId, name)
+                .orElseThrow(() -> new IllegalArgumentException("Split rule '" + name + "' not found in this group"));
+        ruleRepository.delete(rule);
+        rulesCache.invalidate(groupId);
+    }
+
+    /**
+     * The compiled rule to split an expense of the group with.
+     *
+     * @throws IllegalArgumentException if the group has no rule with this name
+     */
+    public FormulaSplit getSplit(String groupId, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Split details with 'rule' name are required for CUSTOM_RULE_SPLIT");
+        }
+        FormulaSplit split = rulesCache.get(groupId, this::compileRules).get(name.trim());
+        if (split == null) {
+            throw new IllegalArgumentException("Split rule '" + name + "' not found in this group");
+        }
+        return split;
+    }
+
+    private Map<String, FormulaSplit> compileRules(String groupId) {
+        Map<String, FormulaSplit> rules = new HashMap<>();
+        for (GroupSplitRule rule : ruleRepository.findByGroupIdOrderByName(groupId)) {
+            rules.put(rule.getName(), new FormulaSplit(rule.getName(), Formula.compile(rule.getFormula()), rule.getVariables()));
+        }
+        return rules;
+    }
+
+    private void requireMember(String groupId, String userId) {
+        if (!groupMembershipService.getMembership(groupId).contains(userId)) {
+            throw new IllegalArgumentException("You must be a member of the group to manage its split rules");
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package splitwise.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import splitwise.model.Group;
 import splitwise.model.User;
-import splitwise.repository.GroupRepository;
+import splitwise.repository.UserPairRepository;
 import splitwise.repository.UserRepository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class UserService {
@@ -20,10 +26,16 @@ public class UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private GroupRepository groupRepository;
-    
+    private UserPairRepository userPairRepository;
+
+    @Autowired
+    private LedgerVersionService ledgerVersionService;
+
     @Autowired
-    private BalanceSheet balanceSheet;
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CurrencyService currencyService;
     
     @Transactional
     public User createUser(String id, String name, String email, String mobile) {
@@ -42,6 +54,73 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("User with ID " + id + " not found"));
     }
     
+    /**
+     * Resolves several users at once: cached users are served from the "users" cache,
+     * all the others are fetched with a single query and added to the cache.
+     *
+     * @param ids The user IDs to resolve (duplicates and nulls are ignored)
+     * @return The users by ID, in the order of the given IDs
+     * @throws IllegalArgumentException listing every ID that does not exist
+     */
+    public Map<String, User> getUsers(Collection<String> ids) {
+        Map<String, User> users = findUsers(ids);
+        if (users.size() < countDistinct(ids)) {
+            List<String> missing = ids.stream()
+                    .filter(id -> id != null && !users.containsKey(id))
+                    .distinct()
+                    .toList();
+            throw new IllegalArgumentException("Users not found: " + String.join(", ", missing));
+        }
+        return users;
+    }
+
+    /**
+     * Same as getUsers, but silently leaves out the IDs that do not exist.
+     */
+    public Map<String, User> findUsers(Collection<String> ids) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null) {
+                requested.add(id);
+            }
+        }
+
+        Map<String, User> found = new LinkedHashMap<>();
+        List<String> uncached = new ArrayList<>();
+        Cache cache = cacheManager.getCache("users");
+        for (String id : requested) {
+            User cached = cache != null ? cache.get(id, User.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+
+        if (!uncached.isEmpty()) {
+            for (User user : userRepository.findAllById(uncached)) {
+                found.put(user.getUserId(), user);
+                if (cache != null) {
+                    cache.put(user.getUserId(), user);
+                }
+            }
+        }
+
+        // Keep the caller's order
+        Map<String, User> ordered = new LinkedHashMap<>();
+        for (String id : requested) {
+            User user = found.get(id);
+            if (user != null) {
+                ordered.put(id, user);
+            }
+        }
+        return ordered;
+    }
+
+    private long countDistinct(Collection<String> ids) {
+        return ids.stream().filter(id -> id != null).distinct().count();
+    }
+    
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -64,19 +143,29 @@ public class UserService {
     private void validateUserCanBeDeleted(User user) {
         List<String> issues = new ArrayList<>();
         
+        // Unsettled balances and group memberships, in one query
+        int unsettledCount = 0;
+        double totalBalance = 0.0;
+        List<String> groupNames = new ArrayList<>();
+        for (Object[] row : userPairRepository.findUnsettled(user.getUserId(), "")) {
+            if ("GROUP".equals(row[0])) {
+                groupNames.add((String) row[2]);
+            } else {
+                unsettledCount++;
+                totalBalance += currencyService.convert(((Number) row[3]).doubleValue(), (String) row[4], user.getCurrency());
+            }
+        }
+        
         // Check for unsettled balances
-        double totalBalance = balanceSheet.getTotalBalance(user);
-        if (Math.abs(totalBalance) > 0.001) {
-            issues.add("User has unsettled balance of Rs. " + String.format("%.2f", totalBalance));
+        if (unsettledCount > 0) {
+            issues.add("User has unsettled balance of " + currencyService.currencyOf(user.getCurrency()) + " "
+                    + String.format("%.2f", totalBalance)
+                    + " with " + unsettledCount + " user(s)");
         }
         
         // Check for group memberships
-        List<Group> userGroups = groupRepository.findGroupsByUserId(user.getUserId());
-        if (!userGroups.isEmpty()) {
-            List<String> groupNames = userGroups.stream()
-                    .map(Group::getName)
-                    .toList();
-            issues.add("User is a member of " + userGroups.size() + " group(s): " + String.join(", ", groupNames));
+        if (!groupNames.isEmpty()) {
+            issues.add("User is a member of " + groupNames.size() + " group(s): " + String.join(", ", groupNames));
         }
         
         if (!issues.isEmpty()) {
@@ -89,7 +178,7 @@ public class UserService {
     
     @Transactional
     @CacheEvict(value = "users", key = "#id")
-    public User updateUser(String id, String name, String email, String mobile) {
+    public User updateUser(String id, String name, String email, String mobile, String currency) {
         User user = getUser(id);
         
         if (name != null && !name.equals(user.getName())) {
@@ -107,7 +196,14 @@ public class UserService {
         if (mobile != null && !mobile.equals(user.getMobile())) {
             user.setMobile(mobile);
         }
+
+        // Balances are shown in this currency; the base currency is stored as null
+        if (currency != null) {
+            String resolved = currencyService.resolveConvertible(currency);
+            user.setCurrency(resolved.equals(currencyService.getBaseCurrency()) ? null : resolved);
+        }
         
+        ledgerVersionService.bump(id);
         return userRepository.save(user);
     }
 }
\ No newline at end of file
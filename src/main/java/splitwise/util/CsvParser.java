@@ -0,0 +1,75 @@
+package splitwise.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV parser: comma separated, double-quoted fields may contain
+ * commas, line breaks and escaped quotes (""). Blank lines are skipped.
+ */
+public class CsvParser {
+
+    public static List<List<String>> parse(String content) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+
+        int length = content.length();
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < length && content.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                    quoted = true;
+                    fieldStarted = true;
+                    break;
+                case ',':
+                    record.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = true;
+                    break;
+                case '\r':
+                    break;
+                case '\n':
+                    endRecord(records, record, field, fieldStarted);
+                    record = new ArrayList<>();
+                    fieldStarted = false;
+                    break;
+                default:
+                    field.append(c);
+                    fieldStarted = true;
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field in CSV");
+        }
+        endRecord(records, record, field, fieldStarted);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field, boolean fieldStarted) {
+        if (!fieldStarted && record.isEmpty()) {
+            return; // blank line
+        }
+        record.add(field.toString());
+        field.setLength(0);
+        records.add(record);
+    }
+}
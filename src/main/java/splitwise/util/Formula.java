@@ -0,0 +1,292 @@
+package splitwise.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A split formula compiled once into a tree of evaluators, then evaluated for any number of expenses.
+ *
+ * The formula gives the weight of one participant; shares are proportional to the weights.
+ * - numbers, + - * / ^, parentheses
+ * - amount: the expense amount, n: the number of participants
+ * - any other name is a per-participant variable, e.g. roomSize
+ * - sum(var): the variable summed over all participants
+ * - min(a, b, ...), max(a, b, ...), abs(x), round(x)
+ *
+ * Example, rent by room size plus equal utilities: 0.8 * roomSize / sum(roomSize) + 0.2 / n
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class Formula {
+
+    public static final int MAX_LENGTH = 500;
+
+    private final String source;
+    private final List<String> variables;
+    private final Node root;
+
+    private Formula(String source, List<String> variables, Node root) {
+        this.source = source;
+        this.variables = Collections.unmodifiableList(variables);
+        this.root = root;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the formula is not valid
+     */
+    public static Formula compile(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Formula cannot be empty");
+        }
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Formula cannot be longer than " + MAX_LENGTH + " characters");
+        }
+        Parser parser = new Parser(source);
+        Node root = parser.parseExpression();
+        parser.expectEnd();
+        return new Formula(source, parser.variables, root);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Per-participant variables, in the order their values are expected by evaluate.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Evaluates the weight of every participant.
+     *
+     * @param values values[v][i] is variable v (see getVariables) for participant i
+     */
+    public double[] evaluate(double amount, int participantCount, double[][] values) {
+        double[] sums = new double[values.length];
+        for (int v = 0; v < values.length; v++) {
+            for (int i = 0; i < participantCount; i++) {
+                sums[v] += values[v][i];
+            }
+        }
+        Scope scope = new Scope(amount, participantCount, values, sums);
+        double[] weights = new double[participantCount];
+        for (int i = 0; i < participantCount; i++) {
+            weights[i] = root.eval(scope, i);
+        }
+        return weights;
+    }
+
+    private record Scope(double amount, int n, double[][] values, double[] sums) {
+    }
+
+    @FunctionalInterface
+    private interface Node {
+        double eval(Scope scope, int participant);
+    }
+
+    private static final class Parser {
+
+        private final String text;
+        private final List<String> variables = new ArrayList<>();
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parseExpression() {
+            Node left = parseTerm();
+            while (true) {
+                if (accept('+')) {
+                    Node l = left, r = parseTerm();
+                    left = (s, i) -> l.eval(s, i) + r.eval(s, i);
+                } else if (accept('-')) {
+                    Node l = left, r = parseTerm();
+                    left = (s, i) -> l.eval(s, i) - r.eval(s, i);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseTerm() {
+            Node left = parseUnary();
+            while (true) {
+                if (accept('*')) {
+                    Node l = left, r = parseUnary();
+                    left = (s, i) -> l.eval(s, i) * r.eval(s, i);
+                } else if (accept('/')) {
+                    Node l = left, r = parseUnary();
+                    left = (s, i) -> l.eval(s, i) / r.eval(s, i);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseUnary() {
+            if (accept('-')) {
+                Node operand = parseUnary();
+                return (s, i) -> -operand.eval(s, i);
+            }
+            Node base = parsePrimary();
+            if (accept('^')) {
+                Node exponent = parseUnary();
+                return (s, i) -> Math.pow(base.eval(s, i), exponent.eval(s, i));
+            }
+            return base;
+        }
+
+        private Node parsePrimary() {
+            skipSpaces();
+            if (pos >= text.length()) {
+                throw error("unexpected end of formula");
+            }
+            char c = text.charAt(pos);
+            if (accept('(')) {
+                Node inner = parseExpression();
+                expect(')');
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                double value = parseNumber();
+                return (s, i) -> value;
+            }
+            if (Character.isLetter(c) || c == '_') {
+                String name = parseName();
+                if (accept('(')) {
+                    return parseFunction(name);
+                }
+                return switch (name) {
+                    case "amount" -> (s, i) -> s.amount();
+                    case "n" -> (s, i) -> s.n();
+                    default -> {
+                        int slot = slot(name);
+                        yield (s, i) -> s.values()[slot][i];
+                    }
+                };
+            }
+            throw error("unexpected '" + c + "'");
+        }
+
+        private Node parseFunction(String name) {
+            if (name.equals("sum")) {
+                skipSpaces();
+                String variable = parseName();
+                expect(')');
+                if (variable.equals("amount") || variable.equals("n")) {
+                    throw error("sum() takes a participant variable");
+                }
+                int slot = slot(variable);
+                return (s, i) -> s.sums()[slot];
+            }
+
+            List<Node> args = new ArrayList<>();
+            args.add(parseExpression());
+            while (accept(',')) {
+                args.add(parseExpression());
+            }
+            expect(')');
+            Node[] nodes = args.toArray(new Node[0]);
+            return switch (name) {
+                case "min" -> (s, i) -> {
+                    double result = nodes[0].eval(s, i);
+                    for (int k = 1; k < nodes.length; k++) {
+                        result = Math.min(result, nodes[k].eval(s, i));
+                    }
+                    return result;
+                };
+                case "max" -> (s, i) -> {
+                    double result = nodes[0].eval(s, i);
+                    for (int k = 1; k < nodes.length; k++) {
+                        result = Math.max(result, nodes[k].eval(s, i));
+                    }
+                    return result;
+                };
+                case "abs" -> {
+                    requireArgs(name, nodes, 1);
+                    yield (s, i) -> Math.abs(nodes[0].eval(s, i));
+                }
+                case "round" -> {
+                    requireArgs(name, nodes, 1);
+                    yield (s, i) -> Math.round(nodes[0].eval(s, i));
+                }
+                default -> throw error("unknown function '" + name + "'");
+            };
+        }
+
+        private void requireArgs(String function, Node[] nodes, int count) {
+            if (nodes.length != count) {
+                throw error(function + "() takes " + count + " argument" + (count == 1 ? "" : "s"));
+            }
+        }
+
+        private int slot(String variable) {
+            int slot = variables.indexOf(variable);
+            if (slot < 0) {
+                variables.add(variable);
+                slot = variables.size() - 1;
+            }
+            return slot;
+        }
+
+        private double parseNumber() {
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("invalid number");
+            }
+        }
+
+        private String parseName() {
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("name expected");
+            }
+            return text.substring(start, pos);
+        }
+
+        private boolean accept(char expected) {
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!accept(expected)) {
+                throw error("'" + expected + "' expected");
+            }
+        }
+
+        void expectEnd() {
+            skipSpaces();
+            if (pos < text.length()) {
+                throw error("unexpected '" + text.charAt(pos) + "'");
+            }
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid formula at position " + (pos + 1) + ": " + message);
+        }
+    }
+}
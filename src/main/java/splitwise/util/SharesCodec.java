@@ -0,0 +1,81 @@
+package splitwise.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Packs the shares of an expense, (user id, amount) pairs, into a single byte array.
+ *
+ * Layout: format version (1 byte), pair count (varint), then for each pair
+ * the user id length (varint), the user id in UTF-8 and the amount as an 8-byte double.
+ */
+public class SharesCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    public static byte[] encode(Map<String, Double> shares) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 + shares.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeVarInt(out, shares.size());
+            for (Map.Entry<String, Double> share : shares.entrySet()) {
+                byte[] userId = share.getKey().getBytes(StandardCharsets.UTF_8);
+                writeVarInt(out, userId.length);
+                out.write(userId);
+                out.writeDouble(share.getValue() != null ? share.getValue() : 0.0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The shares by user id, in the order they were encoded
+     */
+    public static Map<String, Double> decode(byte[] packed) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(packed))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported shares format version: " + version);
+            }
+            int count = readVarInt(in);
+            Map<String, Double> shares = new LinkedHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                byte[] userId = new byte[readVarInt(in)];
+                in.readFully(userId);
+                shares.put(new String(userId, StandardCharsets.UTF_8), in.readDouble());
+            }
+            return shares;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupted shares data", e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,100 @@
+package splitwise.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single computation.
+ *
+ * The first caller for a key runs the computation; callers arriving while it is in flight
+ * wait for it and receive the same result (or the same exception). Nothing is cached once
+ * the computation completes, so the next call after that computes again.
+ *
+ * @param <K> Key identifying identical computations
+ * @param <V> Result type, shared between all coalesced callers and therefore treated as read-only
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Runs the computation for the key, or joins the one already in flight.
+     *
+     * @param key          Key identifying the computation
+     * @param computation  Computation to run if none is in flight for the key
+     * @return The result of the (possibly shared) computation
+     */
+    public V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V result = computation.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of computations actually run.
+     */
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    /**
+     * Number of calls that were served by another caller's computation, i.e. computations saved.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Number of computations currently in flight.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -1,19 +1,25 @@
 package splitwise.util;
 
-import splitwise.model.User;
-
 import java.util.List;
-import java.util.Map;
 
+/**
+ * A split strategy. Implementations are stateless singletons shared by all expenses,
+ * see SplitFactory.
+ */
 public interface Split {
 
-
     /**
      * Calculates split for the given amount among participants based on split details
-     * @param amount        Total amount to split
-     * @param participants  List of users participating in the split
-     * @param splitDetails  additional details required for split logic
-     * @return  Map where key is user and value is amount they owe/get back
+     * @param amount  Total amount to split
+     * @param input   Participants and their split details, parsed once
+     * @return  Amount each participant owes, aligned with the participants of the input
+     */
+    double[] calculateSplit(double amount, SplitInput input);
+
+    /**
+     * Split details maps read by this strategy, the first one present is used.
      */
-    Map<User, Double> calculateSplit(double amount, List<User> participants, Map<String, Object> splitDetails);
+    default List<String> detailKeys() {
+        return List.of();
+    }
 }
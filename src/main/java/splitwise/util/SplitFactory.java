@@ -1,26 +1,57 @@
 package splitwise.util;
 
+import splitwise.model.User;
 import splitwise.util.impl.*;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the split strategies, one stateless instance per split type.
+ * CUSTOM_RULE_SPLIT has no entry: its strategy is the group's rule, see SplitRuleService.
+ */
 public class SplitFactory {
 
-    public static Split createSplit(SplitTypes splitType){
-
-        switch (splitType){
-
-            case EQUAL_SPLIT:
-                return new EqualSplit();
-            case SPLIT_BY_PERCENTAGES:
-                return new PercentSplit();
-            case EXACT_AMOUNT_SPLIT:
-                return new ExactAmountSplit();
-            case SHARES_SPLIT:
-                return new ShareSplit();
-            case ADJUSTMENT_SPLIT:
-                return new AdjustmentSplit();
-            default:
-                throw new IllegalArgumentException("Unknown Split Type : "+splitType);
+    private static final Map<SplitTypes, Split> SPLITS = new EnumMap<>(SplitTypes.class);
+
+    static {
+        SPLITS.put(SplitTypes.EQUAL_SPLIT, new EqualSplit());
+        SPLITS.put(SplitTypes.SPLIT_BY_PERCENTAGES, new PercentSplit());
+        SPLITS.put(SplitTypes.EXACT_AMOUNT_SPLIT, new ExactAmountSplit());
+        SPLITS.put(SplitTypes.SHARES_SPLIT, new ShareSplit());
+        SPLITS.put(SplitTypes.ADJUSTMENT_SPLIT, new AdjustmentSplit());
+        SPLITS.put(SplitTypes.ITEMIZED_SPLIT, new ItemizedSplit());
+    }
+
+    public static Split getSplit(SplitTypes splitType) {
+        Split split = splitType != null ? SPLITS.get(splitType) : null;
+        if (split == null) {
+            throw new IllegalArgumentException("Unknown Split Type : " + splitType);
         }
+        return split;
     }
 
+    /**
+     * Splits the amount among the participants.
+     *
+     * @param splitDetails Split details as received, per-user maps keyed by user ID
+     * @param currency     ISO 4217 code of the amount
+     * @return Amount each participant owes, in participant order
+     */
+    public static Map<User, Double> calculateShares(SplitTypes splitType, double amount,
+                                                    List<User> participants, Map<String, Object> splitDetails,
+                                                    String currency) {
+        return calculateShares(getSplit(splitType), amount, participants, splitDetails, currency);
+    }
+
+    /**
+     * Splits the amount among the participants with the given strategy.
+     */
+    public static Map<User, Double> calculateShares(Split split, double amount,
+                                                    List<User> participants, Map<String, Object> splitDetails,
+                                                    String currency) {
+        SplitInput input = SplitInput.of(participants, splitDetails, split.detailKeys(), currency);
+        return input.toShares(split.calculateSplit(amount, input));
+    }
 }
@@ -0,0 +1,163 @@
+package splitwise.util;
+
+import splitwise.model.User;
+
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Split details of an expense parsed once into arrays aligned with the participant list:
+ * values[i] is the percentage, share, amount or adjustment given for participant i,
+ * or NaN when none was given.
+ *
+ * The per-user detail maps may be keyed by user ID (as received in requests) or by User,
+ * and hold any JSON number. Keys that are not participants are ignored, the first one is
+ * kept in unknownUserId for strategies that reject them.
+ *
+ * Strategies with structured details (e.g. itemized receipts) read getSplitDetails() and
+ * resolve users with indexOf. Strategies that round to the smallest unit of the expense
+ * currency read getFractionDigits().
+ */
+public final class SplitInput {
+
+    private static final int DEFAULT_FRACTION_DIGITS = 2;
+
+    private final User[] participants;
+    private final Map<String, Object> splitDetails;
+    private final double[] values;
+    private int fractionDigits = DEFAULT_FRACTION_DIGITS;
+    private boolean hasDetails;
+    private String unknownUserId;
+    private Map<String, Integer> indexByUserId;
+
+    private SplitInput(User[] participants, Map<String, Object> splitDetails) {
+        this.participants = participants;
+        this.splitDetails = splitDetails;
+        this.values = new double[participants.length];
+        Arrays.fill(values, Double.NaN);
+    }
+
+    /**
+     * Parses the first of the given detail maps present in splitDetails.
+     *
+     * @param currency ISO 4217 code of the amount, decides the fraction digits (2 when null)
+     */
+    public static SplitInput of(List<User> participants, Map<String, Object> splitDetails, List<String> detailKeys,
+                                String currency) {
+        SplitInput input = new SplitInput(participants.toArray(new User[0]), splitDetails);
+        if (currency != null) {
+            int digits = Currency.getInstance(currency).getDefaultFractionDigits();
+            // Pseudo-currencies (e.g. XAU) have no fraction digits defined
+            input.fractionDigits = digits >= 0 ? digits : DEFAULT_FRACTION_DIGITS;
+        }
+
+        Map<?, ?> detailMap = null;
+        if (splitDetails != null) {
+            for (String key : detailKeys) {
+                if (splitDetails.get(key) instanceof Map<?, ?> map) {
+                    detailMap = map;
+                    break;
+                }
+            }
+        }
+        if (detailMap == null || detailMap.isEmpty()) {
+            return input;
+        }
+
+        input.hasDetails = true;
+        for (Map.Entry<?, ?> entry : detailMap.entrySet()) {
+            String userId = entry.getKey() instanceof User user ? user.getUserId() : String.valueOf(entry.getKey());
+            int index = input.indexOf(userId);
+            if (index < 0) {
+                if (input.unknownUserId == null) {
+                    input.unknownUserId = userId;
+                }
+                continue;
+            }
+            input.values[index] = toDouble(userId, entry.getValue());
+        }
+        return input;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double value(int index) {
+        return values[index];
+    }
+
+    /**
+     * The value given for a participant, or the default when none was given.
+     */
+    public double valueOrDefault(int index, double defaultValue) {
+        double value = values[index];
+        return Double.isNaN(value) ? defaultValue : value;
+    }
+
+    public String userId(int index) {
+        return participants[index].getUserId();
+    }
+
+    public boolean hasDetails() {
+        return hasDetails;
+    }
+
+    public String getUnknownUserId() {
+        return unknownUserId;
+    }
+
+    public Map<String, Object> getSplitDetails() {
+        return splitDetails;
+    }
+
+    /**
+     * Number of digits after the decimal point of the expense currency (2 for USD, 0 for JPY).
+     */
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    /**
+     * Position of the user among the participants, or -1 if not a participant.
+     */
+    public int indexOf(String userId) {
+        if (indexByUserId == null) {
+            indexByUserId = new HashMap<>(participants.length * 4 / 3 + 1);
+            for (int i = 0; i < participants.length; i++) {
+                indexByUserId.putIfAbsent(participants[i].getUserId(), i);
+            }
+        }
+        Integer index = indexByUserId.get(userId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Maps amounts aligned with the participants back to shares keyed by participant.
+     */
+    public Map<User, Double> toShares(double[] amounts) {
+        Map<User, Double> shares = new LinkedHashMap<>(amounts.length * 4 / 3 + 1);
+        for (int i = 0; i < amounts.length; i++) {
+            shares.put(participants[i], amounts[i]);
+        }
+        return shares;
+    }
+
+    private static double toDouble(String userId, Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("Invalid split value for user " + userId + ": " + value);
+    }
+}
@@ -7,6 +7,8 @@ public enum SplitTypes {
     SHARES_SPLIT,
     EXACT_AMOUNT_SPLIT,
     ADJUSTMENT_SPLIT,
+    ITEMIZED_SPLIT,
+    CUSTOM_RULE_SPLIT,
 
 
 }
@@ -0,0 +1,97 @@
+package splitwise.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Read-through access to a local cache whose entries are invalidated by writing transactions.
+ *
+ * Evicting when a transaction changes the data is not enough on its own: a reader that loaded
+ * the old rows before the commit can put them back afterwards. Each key therefore has a
+ * generation, bumped by every invalidation when it starts and again when the transaction
+ * completes. A loaded value is only cached if the generation of its key did not move while
+ * it was loaded, and it is evicted again if an invalidation started while it was being put.
+ *
+ * Generations are striped, so two keys may share one; that only makes a load skip caching.
+ *
+ * @param <K> Cache key
+ * @param <V> Cached value, shared between readers and therefore treated as read-only
+ */
+public class TransactionalCache<K, V> {
+
+    private static final int STRIPES = 1024;
+
+    private final Function<K, V> lookup;
+
+    private final BiConsumer<K, V> store;
+
+    private final Consumer<K> evict;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param lookup The cached value of a key, null when absent
+     * @param store  Caches a value
+     * @param evict  Drops the cached value of a key
+     */
+    public TransactionalCache(Function<K, V> lookup, BiConsumer<K, V> store, Consumer<K> evict) {
+        this.lookup = lookup;
+        this.store = store;
+        this.evict = evict;
+    }
+
+    /**
+     * Returns the cached value of the key, or loads and caches it.
+     *
+     * @param key    Key to look up
+     * @param loader Loads the value when it is not cached; exceptions are propagated and nothing is cached
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = lookup.apply(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stripe = stripe(key);
+        long generation = generations.get(stripe);
+        V loaded = loader.apply(key);
+        if (loaded != null && generations.get(stripe) == generation) {
+            store.accept(key, loaded);
+            if (generations.get(stripe) != generation) {
+                evict.accept(key);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the cached value of the key now and once more when the current transaction completes,
+     * so readers that loaded it in the meantime do not cache what they read before the change.
+     */
+    public void invalidate(K key) {
+        invalidateNow(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(key);
+                }
+            });
+        }
+    }
+
+    private void invalidateNow(K key) {
+        generations.incrementAndGet(stripe(key));
+        evict.accept(key);
+    }
+
+    private int stripe(K key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -1,51 +1,24 @@
 package splitwise.util.impl;
 
-import splitwise.model.User;
 import splitwise.util.Split;
+import splitwise.util.SplitInput;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class AdjustmentSplit implements Split {
 
     @Override
-    public Map<User, Double> calculateSplit(double amount, List<User> participants, Map<String, Object> splitDetails) {
-        // Handle both User objects and String user IDs as keys
-        Map<User, Double> adjustments = new HashMap<>();
-        
-        if (splitDetails != null && splitDetails.containsKey("adjustments")) {
-            Object adjustmentsObj = splitDetails.get("adjustments");
-            
-            if (adjustmentsObj instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<Object, Double> rawAdjustments = (Map<Object, Double>) adjustmentsObj;
-                
-                for (Map.Entry<Object, Double> entry : rawAdjustments.entrySet()) {
-                    if (entry.getKey() instanceof User) {
-                        adjustments.put((User) entry.getKey(), entry.getValue());
-                    } else if (entry.getKey() instanceof String) {
-                        // Find the user by ID from participants
-                        String userId = (String) entry.getKey();
-                        User user = participants.stream()
-                            .filter(p -> p.getUserId().equals(userId))
-                            .findFirst()
-                            .orElseThrow(() -> new IllegalArgumentException("User " + userId + " not found in participants"));
-                        adjustments.put(user, entry.getValue());
-                    }
-                }
-            }
+    public double[] calculateSplit(double amount, SplitInput input) {
+        if (input.getUnknownUserId() != null) {
+            throw new IllegalArgumentException("User " + input.getUnknownUserId() + " not found in participants");
         }
 
-        Map<User, Double> result = new HashMap<>();
+        int size = input.size();
         double totalAdjustments = 0;
 
         // Calculate total adjustments
-        for (User participant : participants) {
-            Double adjustment = adjustments.get(participant);
-            if (adjustment != null) {
-                totalAdjustments += adjustment;
-            }
+        for (int i = 0; i < size; i++) {
+            totalAdjustments += input.valueOrDefault(i, 0.0);
         }
 
         // Calculate base amount (remaining after adjustments)
@@ -58,23 +31,28 @@ public class AdjustmentSplit implements Split {
         }
 
         // Split remaining amount equally
-        double equalShare = remainingAmount / participants.size();
+        double equalShare = remainingAmount / size;
 
         // Apply equal share + adjustments
-        for (User participant : participants) {
-            Double adjustment = adjustments.get(participant);
-            double userShare = equalShare + (adjustment != null ? adjustment : 0);
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            double userShare = equalShare + input.valueOrDefault(i, 0.0);
             
             if (userShare < 0) {
                 throw new IllegalArgumentException(
                     String.format("Calculated share for user %s is negative: %.2f",
-                        participant.getUserId(), userShare)
+                        input.userId(i), userShare)
                 );
             }
             
-            result.put(participant, userShare);
+            result[i] = userShare;
         }
 
         return result;
     }
+
+    @Override
+    public List<String> detailKeys() {
+        return List.of("adjustments");
+    }
 }
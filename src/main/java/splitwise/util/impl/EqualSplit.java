@@ -1,21 +1,18 @@
 package splitwise.util.impl;
 
-import splitwise.model.User;
 import splitwise.util.Split;
+import splitwise.util.SplitInput;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 public class EqualSplit implements Split {
 
 
     @Override
-    public Map<User, Double> calculateSplit(double amount, List<User> participants, Map<String, Object> splitDetails) {
-        Map<User, Double> splits = new HashMap<>();
-        if(participants!=null && !participants.isEmpty()) {
-            double amountPerUser = amount / participants.size();
-            participants.forEach(p-> splits.put(p, amountPerUser));
+    public double[] calculateSplit(double amount, SplitInput input) {
+        double[] splits = new double[input.size()];
+        if (splits.length > 0) {
+            Arrays.fill(splits, amount / splits.length);
         }
         return splits;
     }
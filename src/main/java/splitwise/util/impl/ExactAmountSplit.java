@@ -1,34 +1,31 @@
 package splitwise.util.impl;
 
-import splitwise.model.User;
 import splitwise.util.Split;
+import splitwise.util.SplitInput;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class ExactAmountSplit implements Split {
 
     @Override
-    public Map<User, Double> calculateSplit(double amount, List<User> participants, Map<String, Object> splitDetails) {
-        if (splitDetails == null || !splitDetails.containsKey("exactAmounts")) {
+    public double[] calculateSplit(double amount, SplitInput input) {
+        if (!input.hasDetails()) {
             throw new IllegalArgumentException("Exact amounts must be specified in splitDetails");
         }
         
-        @SuppressWarnings("unchecked")
-        Map<String, Double> exactAmounts = (Map<String, Double>) splitDetails.get("exactAmounts");
-        Map<User, Double> result = new HashMap<>();
+        int size = input.size();
+        double[] result = new double[size];
         double totalSpecified = 0;
 
-        for (User participant : participants) {
-            Double userAmount = exactAmounts.get(participant.getUserId());
-            if (userAmount == null) {
-                throw new IllegalArgumentException("Exact amount not specified for user: " + participant.getUserId());
+        for (int i = 0; i < size; i++) {
+            double userAmount = input.value(i);
+            if (Double.isNaN(userAmount)) {
+                throw new IllegalArgumentException("Exact amount not specified for user: " + input.userId(i));
             }
             if (userAmount < 0) {
-                throw new IllegalArgumentException("Amount cannot be negative for user: " + participant.getUserId());
+                throw new IllegalArgumentException("Amount cannot be negative for user: " + input.userId(i));
             }
-            result.put(participant, userAmount);
+            result[i] = userAmount;
             totalSpecified += userAmount;
         }
 
@@ -41,4 +38,10 @@ public class ExactAmountSplit implements Split {
         
         return result;
     }
+
+    // "amounts" is what requests are validated against, "exactAmounts" is the older name
+    @Override
+    public List<String> detailKeys() {
+        return List.of("amounts", "exactAmounts");
+    }
 }
@@ -0,0 +1,92 @@
+package splitwise.util.impl;
+
+import splitwise.util.Formula;
+import splitwise.util.Split;
+import splitwise.util.SplitInput;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group's custom split rule: shares proportional to the weight its formula gives each participant.
+ *
+ * Variable values come from splitDetails "variables" ({"roomSize": {"u1": 14, "u2": 9}}),
+ * falling back to the values stored with the rule.
+ */
+public class FormulaSplit implements Split {
+
+    private final String name;
+    private final Formula formula;
+    private final Map<String, Map<String, Double>> defaultValues;
+
+    public FormulaSplit(String name, Formula formula, Map<String, Map<String, Double>> defaultValues) {
+        this.name = name;
+        this.formula = formula;
+        this.defaultValues = defaultValues != null ? defaultValues : Map.of();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public double[] calculateSplit(double amount, SplitInput input) {
+        int size = input.size();
+        List<String> variables = formula.getVariables();
+        Map<?, ?> overrides = input.getSplitDetails() != null && input.getSplitDetails().get("variables") instanceof Map<?, ?> map
+                ? map : Map.of();
+
+        double[][] values = new double[variables.size()][];
+        for (int v = 0; v < values.length; v++) {
+            String variable = variables.get(v);
+            values[v] = new double[size];
+            Arrays.fill(values[v], Double.NaN);
+            fill(values[v], defaultValues.get(variable), input, variable);
+            fill(values[v], overrides.get(variable), input, variable);
+            for (int i = 0; i < size; i++) {
+                if (Double.isNaN(values[v][i])) {
+                    throw new IllegalArgumentException(
+                            "Variable '" + variable + "' of rule '" + name + "' is not set for user " + input.userId(i));
+                }
+            }
+        }
+
+        double[] weights = formula.evaluate(amount, size, values);
+        double totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            if (!Double.isFinite(weights[i]) || weights[i] < 0) {
+                throw new IllegalArgumentException(
+                        "Rule '" + name + "' gives an invalid weight for user " + input.userId(i) + ": " + weights[i]);
+            }
+            totalWeight += weights[i];
+        }
+        if (totalWeight == 0) {
+            throw new IllegalArgumentException("Rule '" + name + "' gives every participant a weight of zero");
+        }
+
+        double[] shares = new double[size];
+        for (int i = 0; i < size; i++) {
+            shares[i] = amount * weights[i] / totalWeight;
+        }
+        return shares;
+    }
+
+    // Values keyed by user ID, users who are not participants are ignored
+    private void fill(double[] target, Object valuesByUser, SplitInput input, String variable) {
+        if (!(valuesByUser instanceof Map<?, ?> map)) {
+            return;
+        }
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            int index = input.indexOf(String.valueOf(entry.getKey()));
+            if (index < 0) {
+                continue;
+            }
+            if (!(entry.getValue() instanceof Number number)) {
+                throw new IllegalArgumentException(
+                        "Variable '" + variable + "' must be a number for user " + entry.getKey());
+            }
+            target[index] = number.doubleValue();
+        }
+    }
+}
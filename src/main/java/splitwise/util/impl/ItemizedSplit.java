@@ -0,0 +1,191 @@
+package splitwise.util.impl;
+
+import splitwise.util.Split;
+import splitwise.util.SplitInput;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits an itemized receipt.
+ *
+ * splitDetails: {"items": [{"name": "Pizza", "price": 12.5, "quantity": 2, "participantIds": ["u1", "u2"]}, ...],
+ *                "tax": 3.2, "tip": 5}
+ *
+ * - Each line (price x quantity) is shared equally by its participantIds, or by everyone when omitted
+ * - Tax and tip are shared in proportion to each participant's items
+ * - Items, tax and tip must add up to the expense amount
+ *
+ * Everything is computed in minor units of the expense currency (cents, or whole yen) with exact
+ * integer arithmetic; the units left over after rounding each share down go to the largest
+ * remainders, so the shares add up exactly to the amount.
+ */
+public class ItemizedSplit implements Split {
+
+    @Override
+    public double[] calculateSplit(double amount, SplitInput input) {
+        Map<String, Object> details = input.getSplitDetails();
+        if (details == null || !(details.get("items") instanceof List<?> items) || items.isEmpty()) {
+            throw new IllegalArgumentException("Itemized split requires a non-empty 'items' list");
+        }
+        int size = input.size();
+        if (size == 0) {
+            throw new IllegalArgumentException("Itemized split requires participants");
+        }
+        int digits = input.getFractionDigits();
+
+        // Each line is shared equally by its assignees; keep the exact shares as
+        // lineUnits * (denominator / count), denominator being the LCM of all assignee counts
+        long[] lineUnits = new long[items.size()];
+        int[][] lineAssignees = new int[items.size()][];
+        long itemsTotalUnits = 0;
+        BigInteger denominator = BigInteger.ONE;
+        int[] assignees = new int[size];
+        int[] lastLine = new int[size];
+        for (int line = 0; line < items.size(); line++) {
+            if (!(items.get(line) instanceof Map<?, ?> item)) {
+                throw new IllegalArgumentException("Item " + (line + 1) + " must be an object");
+            }
+            lineUnits[line] = lineUnits(item, line, digits);
+            itemsTotalUnits += lineUnits[line];
+
+            int count = resolveAssignees(item.get("participantIds"), input, assignees, lastLine, line);
+            lineAssignees[line] = Arrays.copyOf(assignees, count);
+            BigInteger countValue = BigInteger.valueOf(count);
+            denominator = denominator.divide(denominator.gcd(countValue)).multiply(countValue);
+        }
+
+        long taxUnits = toUnits(details.get("tax"), "tax", false, digits);
+        long tipUnits = toUnits(details.get("tip"), "tip", false, digits);
+        long totalUnits = toUnits(amount, "amount", true, digits);
+        long receiptUnits = itemsTotalUnits + taxUnits + tipUnits;
+        if (receiptUnits != totalUnits) {
+            throw new IllegalArgumentException(String.format(
+                    "Sum of items, tax and tip (%s) doesn't match total amount (%s)",
+                    BigDecimal.valueOf(receiptUnits, digits).toPlainString(),
+                    BigDecimal.valueOf(totalUnits, digits).toPlainString()));
+        }
+
+        // Exact share of participant i is numerators[i] / divisor
+        BigInteger[] numerators = new BigInteger[size];
+        BigInteger divisor;
+        if (itemsTotalUnits > 0) {
+            Arrays.fill(numerators, BigInteger.ZERO);
+            for (int line = 0; line < lineUnits.length; line++) {
+                BigInteger perAssignee = BigInteger.valueOf(lineUnits[line])
+                        .multiply(denominator.divide(BigInteger.valueOf(lineAssignees[line].length)));
+                for (int index : lineAssignees[line]) {
+                    numerators[index] = numerators[index].add(perAssignee);
+                }
+            }
+            // Scale the item subtotals up to the total, which spreads tax and tip proportionally
+            BigInteger total = BigInteger.valueOf(totalUnits);
+            for (int i = 0; i < size; i++) {
+                numerators[i] = numerators[i].multiply(total);
+            }
+            divisor = denominator.multiply(BigInteger.valueOf(itemsTotalUnits));
+        } else {
+            Arrays.fill(numerators, BigInteger.valueOf(totalUnits));
+            divisor = BigInteger.valueOf(size);
+        }
+
+        // Round down, keep the exact remainders for the leftover units
+        long[] units = new long[size];
+        BigInteger[] remainders = new BigInteger[size];
+        long allocated = 0;
+        for (int i = 0; i < size; i++) {
+            BigInteger[] quotientAndRemainder = numerators[i].divideAndRemainder(divisor);
+            units[i] = quotientAndRemainder[0].longValueExact();
+            remainders[i] = quotientAndRemainder[1];
+            allocated += units[i];
+        }
+        distributeLeftover(units, remainders, totalUnits - allocated);
+
+        double[] shares = new double[size];
+        for (int i = 0; i < size; i++) {
+            shares[i] = BigDecimal.valueOf(units[i], digits).doubleValue();
+        }
+        return shares;
+    }
+
+    // Largest remainder first, earlier participants first on ties; the leftover is below the participant count
+    private void distributeLeftover(long[] units, BigInteger[] remainders, long leftover) {
+        boolean[] rounded = new boolean[units.length];
+        for (long n = 0; n < leftover; n++) {
+            int best = -1;
+            for (int i = 0; i < remainders.length; i++) {
+                if (!rounded[i] && (best < 0 || remainders[i].compareTo(remainders[best]) > 0)) {
+                    best = i;
+                }
+            }
+            units[best]++;
+            rounded[best] = true;
+        }
+    }
+
+    private long lineUnits(Map<?, ?> item, int line, int digits) {
+        long priceUnits = toUnits(item.get("price"), "price of item " + (line + 1), true, digits);
+        Object quantity = item.get("quantity");
+        if (quantity == null) {
+            return priceUnits;
+        }
+        BigDecimal qty = toDecimal(quantity, "quantity of item " + (line + 1));
+        if (qty.signum() <= 0) {
+            throw new IllegalArgumentException("Quantity of item " + (line + 1) + " must be positive");
+        }
+        return qty.multiply(BigDecimal.valueOf(priceUnits)).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Fills assignees with participant positions, everyone when the item lists nobody
+    private int resolveAssignees(Object participantIds, SplitInput input, int[] assignees, int[] lastLine, int line) {
+        if (!(participantIds instanceof List<?> ids) || ids.isEmpty()) {
+            for (int i = 0; i < input.size(); i++) {
+                assignees[i] = i;
+            }
+            return input.size();
+        }
+        int count = 0;
+        for (Object id : ids) {
+            int index = input.indexOf(String.valueOf(id));
+            if (index < 0) {
+                throw new IllegalArgumentException("User " + id + " of item " + (line + 1) + " is not a participant");
+            }
+            if (lastLine[index] == line + 1) {
+                throw new IllegalArgumentException("Item " + (line + 1) + " lists user " + id + " more than once");
+            }
+            lastLine[index] = line + 1;
+            assignees[count++] = index;
+        }
+        return count;
+    }
+
+    // Amount in minor units of the currency, rounded half up
+    private long toUnits(Object value, String what, boolean required, int digits) {
+        if (value == null) {
+            if (required) {
+                throw new IllegalArgumentException("The " + what + " is required");
+            }
+            return 0;
+        }
+        BigDecimal decimal = toDecimal(value, what);
+        if (decimal.signum() < 0) {
+            throw new IllegalArgumentException("The " + what + " cannot be negative");
+        }
+        return decimal.movePointRight(digits).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private BigDecimal toDecimal(Object value, String what) {
+        try {
+            if (value instanceof Double || value instanceof Float) {
+                return BigDecimal.valueOf(((Number) value).doubleValue());
+            }
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + value);
+        }
+    }
+}
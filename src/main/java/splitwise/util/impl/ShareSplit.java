@@ -1,29 +1,35 @@
 package splitwise.util.impl;
 
-import splitwise.model.User;
 import splitwise.util.Split;
+import splitwise.util.SplitInput;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class ShareSplit implements Split {
     @Override
-    public Map<User, Double> calculateSplit(double amount, List<User> participants, Map<String, Object> splitDetails) {
-        Map<User, Double> shares = (Map<User, Double>) splitDetails.get("shares");
-        if (shares == null || shares.isEmpty()) {
+    public double[] calculateSplit(double amount, SplitInput input) {
+        if (!input.hasDetails()) {
             throw new IllegalArgumentException("Shares map cannot be null or empty");
         }
-        double totalShares = shares.values().stream().mapToDouble(Double::doubleValue).sum();
+        int size = input.size();
+        double totalShares = 0.0;
+        for (int i = 0; i < size; i++) {
+            totalShares += input.valueOrDefault(i, 0.0);
+        }
         if (totalShares == 0) {
             throw new IllegalArgumentException("Total shares cannot be zero");
         }
-        Map<User, Double> splits = new HashMap<>();
 
-        double factor = amount/totalShares;
-        for(User user: participants){
-            splits.put(user, shares.getOrDefault(user, 0.0) * factor);
+        double factor = amount / totalShares;
+        double[] splits = new double[size];
+        for (int i = 0; i < size; i++) {
+            splits[i] = input.valueOrDefault(i, 0.0) * factor;
         }
         return splits;
     }
+
+    @Override
+    public List<String> detailKeys() {
+        return List.of("shares");
+    }
 }
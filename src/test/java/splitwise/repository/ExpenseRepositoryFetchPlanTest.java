@@ -0,0 +1,124 @@
+package splitwise.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import splitwise.config.ModelMapperConfig;
+import splitwise.dto.ExpenseResponse;
+import splitwise.model.Expense;
+import splitwise.model.Group;
+import splitwise.model.User;
+import splitwise.service.CurrencyService;
+import splitwise.service.DtoMapperService;
+import splitwise.service.FileFxRateProvider;
+import splitwise.util.SplitTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that listing and mapping expenses costs a fixed number of queries,
+ * independent of the number of expenses returned.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DtoMapperService.class, CurrencyService.class, FileFxRateProvider.class, ModelMapperConfig.class})
+public class ExpenseRepositoryFetchPlanTest {
+
+    private static final int EXPENSE_COUNT = 500;
+
+    // 1 query for expenses with payer, group and packed shares, then ceil(500 / 100) batches for participants
+    private static final long EXPECTED_QUERIES = 1 + 5;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private DtoMapperService dtoMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Group group;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            User user = new User("u" + i, "User " + i, "user" + i + "@example.com");
+            entityManager.persist(user);
+            users.add(user);
+        }
+
+        group = new Group();
+        group.setGroupId("g1");
+        group.setName("Trip");
+        group.setCreatedBy(users.get(0));
+        group.setUserList(new ArrayList<>(users));
+        entityManager.persist(group);
+
+        for (int i = 0; i < EXPENSE_COUNT; i++) {
+            Map<User, Double> shares = new HashMap<>();
+            users.forEach(user -> shares.put(user, 25.0));
+
+            Expense expense = new Expense("e" + i, "Expense " + i, SplitTypes.EQUAL_SPLIT, 100.0,
+                    users.get(i % users.size()), new ArrayList<>(users), shares, new HashMap<>(),
+                    LocalDateTime.now().minusMinutes(i), false);
+            expense.setGroup(group);
+            entityManager.persist(expense);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void mappingAllExpensesUsesFixedQueryCount() {
+        Statistics statistics = statistics();
+
+        List<ExpenseResponse> responses = expenseRepository.findAll().stream()
+                .map(dtoMapper::toExpenseResponse)
+                .toList();
+
+        assertEquals(EXPENSE_COUNT, responses.size());
+        assertEquals(4, responses.get(0).getShares().size());
+        assertEquals(EXPECTED_QUERIES, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void mappingGroupExpensesUsesFixedQueryCount() {
+        Group managedGroup = entityManager.find(Group.class, group.getGroupId());
+        Statistics statistics = statistics();
+
+        List<ExpenseResponse> responses = expenseRepository.findByGroup(managedGroup).stream()
+                .map(dtoMapper::toExpenseResponse)
+                .toList();
+
+        assertEquals(EXPENSE_COUNT, responses.size());
+        assertEquals(4, responses.get(0).getParticipants().size());
+        assertEquals(EXPECTED_QUERIES, statistics.getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,106 @@
+package splitwise.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import splitwise.model.Expense;
+import splitwise.model.User;
+import splitwise.repository.ExpenseRepository;
+import splitwise.repository.UserRepository;
+import splitwise.util.SharesCodec;
+import splitwise.util.SplitTypes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Verifies that expenses migrated from the legacy expense_shares table can be deleted,
+ * the legacy table keeping its foreign key to expenses.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SharesStorageMigration.class, ExpenseManager.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SharesStorageMigrationTest {
+
+    @Autowired
+    private SharesStorageMigration migration;
+
+    @Autowired
+    private ExpenseManager expenseManager;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = userRepository.saveAll(List.of(
+                new User("m1", "User 1", "m1@example.com"),
+                new User("m2", "User 2", "m2@example.com")));
+
+        // Rows as the old @ElementCollection left them: no packed shares, shares in expense_shares
+        expenseRepository.save(new Expense("legacy", "Legacy", SplitTypes.EQUAL_SPLIT, 50.0,
+                users.get(0), new ArrayList<>(users), null, null, LocalDateTime.now(), false));
+        jdbcTemplate.execute("CREATE TABLE expense_shares (expense_id VARCHAR(255) NOT NULL REFERENCES expenses (id), " +
+                "user_id VARCHAR(255) NOT NULL REFERENCES users (user_id), share_amount FLOAT(53), " +
+                "PRIMARY KEY (expense_id, user_id))");
+        jdbcTemplate.update("INSERT INTO expense_shares VALUES ('legacy', 'm1', 20.0), ('legacy', 'm2', 30.0)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS expense_shares");
+        expenseRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void migratedExpenseCanBeDeleted() {
+        migration.afterSingletonsInstantiated();
+
+        byte[] packed = jdbcTemplate.queryForObject("SELECT shares_packed FROM expenses WHERE id = 'legacy'", byte[].class);
+        assertEquals(Map.of("m1", 20.0, "m2", 30.0), SharesCodec.decode(packed));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_shares", Integer.class));
+
+        transactionTemplate.executeWithoutResult(status -> expenseManager.deleteExpense("legacy"));
+        assertFalse(expenseRepository.existsById("legacy"));
+    }
+
+    @Test
+    void legacyRowsOfAlreadyPackedExpensesAreRemoved() {
+        // Packed by an earlier run of the migration, which left the legacy rows behind
+        byte[] packed = SharesCodec.encode(Map.of("m1", 25.0, "m2", 25.0));
+        jdbcTemplate.update("UPDATE expenses SET shares_packed = ? WHERE id = 'legacy'", (Object) packed);
+
+        migration.afterSingletonsInstantiated();
+
+        byte[] kept = jdbcTemplate.queryForObject("SELECT shares_packed FROM expenses WHERE id = 'legacy'", byte[].class);
+        assertEquals(Map.of("m1", 25.0, "m2", 25.0), SharesCodec.decode(kept));
+        transactionTemplate.executeWithoutResult(status -> expenseManager.deleteExpense("legacy"));
+        assertFalse(expenseRepository.existsById("legacy"));
+    }
+}